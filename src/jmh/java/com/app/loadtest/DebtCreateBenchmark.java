@@ -0,0 +1,136 @@
+package com.app.loadtest;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Latency of creating one debt with many lines (POST /api/v1/debts), run against a build
+ * before and after a change to the insert path. Each created debt is deleted again.
+ *
+ * Lines use distinct items (debts_detail is unique on header + item), taken from
+ * GET /api/v1/items, so the database needs at least --lines items.
+ *
+ *   java src/jmh/java/com/app/loadtest/DebtCreateBenchmark.java --label=after --project=1 --person=10 --unit=1
+ *
+ * Options (defaults): --base-url=http://localhost:8080 --user=admin --password=admin
+ * --lines=500 --warmup=5 --iterations=30
+ */
+public class DebtCreateBenchmark {
+
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opt = parse(args);
+        String baseUrl = opt.getOrDefault("base-url", "http://localhost:8080");
+        String label = opt.getOrDefault("label", "run");
+        long projectId = Long.parseLong(required(opt, "project"));
+        long personId = Long.parseLong(required(opt, "person"));
+        long unitId = Long.parseLong(required(opt, "unit"));
+        int lineCount = Integer.parseInt(opt.getOrDefault("lines", "500"));
+        int warmup = Integer.parseInt(opt.getOrDefault("warmup", "5"));
+        int iterations = Integer.parseInt(opt.getOrDefault("iterations", "30"));
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        String token = login(client, baseUrl, opt.getOrDefault("user", "admin"), opt.getOrDefault("password", "admin"));
+
+        List<Long> itemIds = new ArrayList<>();
+        Matcher m = ID.matcher(send(client, get(baseUrl + "/api/v1/items", token), 200));
+        while (m.find() && itemIds.size() < lineCount) itemIds.add(Long.parseLong(m.group(1)));
+        if (itemIds.size() < lineCount) {
+            throw new IllegalStateException("need " + lineCount + " items, found " + itemIds.size());
+        }
+        String body = debtJson(projectId, personId, unitId, itemIds);
+
+        long[] took = new long[iterations];
+        for (int i = 0; i < warmup + iterations; i++) {
+            long start = System.nanoTime();
+            String created = send(client, HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/debts"))
+                    .header("Authorization", "Bearer " + token)
+                    .header("Content-Type", "application/json")
+                    .timeout(Duration.ofSeconds(60))
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build(), 201, 200);
+            long elapsed = System.nanoTime() - start;
+            if (i >= warmup) took[i - warmup] = elapsed;
+
+            Matcher idm = ID.matcher(created);
+            if (!idm.find()) throw new IllegalStateException("no id in response: " + created);
+            send(client, HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/debts/" + idm.group(1)))
+                    .header("Authorization", "Bearer " + token)
+                    .DELETE()
+                    .build(), 204, 200);
+        }
+
+        Arrays.sort(took);
+        double mean = Arrays.stream(took).average().orElse(0);
+        System.out.printf(Locale.ROOT,
+                "%s: lines=%d iterations=%d mean=%.1f ms p50=%.1f ms p95=%.1f ms max=%.1f ms%n",
+                label, lineCount, iterations, mean / 1e6,
+                took[(int) Math.ceil(0.50 * iterations) - 1] / 1e6,
+                took[(int) Math.ceil(0.95 * iterations) - 1] / 1e6,
+                took[iterations - 1] / 1e6);
+    }
+
+    private static String debtJson(long projectId, long personId, long unitId, List<Long> itemIds) {
+        StringJoiner lines = new StringJoiner(",", "[", "]");
+        for (Long itemId : itemIds) {
+            lines.add("{\"itemId\":" + itemId + ",\"unitId\":" + unitId + ",\"qnt\":1.5,\"unitPrice\":120000,\"dsc\":null}");
+        }
+        return "{\"projectId\":" + projectId
+                + ",\"personId\":" + personId
+                + ",\"dateDue\":\"" + LocalDate.now().plusDays(30) + "\""
+                + ",\"dateRegistered\":\"" + LocalDateTime.now().withNano(0) + "\""
+                + ",\"dsc\":\"DebtCreateBenchmark\""
+                + ",\"lines\":" + lines + "}";
+    }
+
+    private static HttpRequest get(String url, String token) {
+        return HttpRequest.newBuilder(URI.create(url)).header("Authorization", "Bearer " + token).GET().build();
+    }
+
+    private static String send(HttpClient client, HttpRequest req, int... expected) throws Exception {
+        HttpResponse<String> res = client.send(req, HttpResponse.BodyHandlers.ofString());
+        for (int status : expected) {
+            if (res.statusCode() == status) return res.body();
+        }
+        throw new IllegalStateException(req.method() + " " + req.uri() + ": HTTP " + res.statusCode() + " " + res.body());
+    }
+
+    private static String login(HttpClient client, String baseUrl, String user, String password) throws Exception {
+        String form = "username=" + URLEncoder.encode(user, StandardCharsets.UTF_8)
+                + "&password=" + URLEncoder.encode(password, StandardCharsets.UTF_8);
+        String body = send(client, HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build(), 200);
+        Matcher m = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"").matcher(body);
+        if (!m.find()) throw new IllegalStateException("login failed: " + body);
+        return m.group(1);
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> out = new HashMap<>();
+        for (String a : args) {
+            if (!a.startsWith("--")) continue;
+            int eq = a.indexOf('=');
+            if (eq > 2) out.put(a.substring(2, eq), a.substring(eq + 1));
+        }
+        return out;
+    }
+
+    private static String required(Map<String, String> opt, String name) {
+        String v = opt.get(name);
+        if (v == null || v.isBlank()) throw new IllegalArgumentException("--" + name + " is required");
+        return v;
+    }
+}
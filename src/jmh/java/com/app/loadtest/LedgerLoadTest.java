@@ -0,0 +1,162 @@
+package com.app.loadtest;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop load test for the ledger / balance endpoints, to compare the default
+ * (platform thread) server with the virtual-thread mode under the same traffic.
+ *
+ * Each worker sends requests back-to-back (50% ledger, 30% person-balance, 20% pair-balance
+ * over the given persons) for the measured duration after a warm-up; prints throughput and
+ * latency percentiles as one line so runs can be compared:
+ *
+ *   mvn spring-boot:run                       # default
+ *   java src/jmh/java/com/app/loadtest/LedgerLoadTest.java --label=platform --project=1 --persons=10,11,12
+ *   mvn -Pjava21 spring-boot:run              # virtual threads
+ *   java src/jmh/java/com/app/loadtest/LedgerLoadTest.java --label=virtual --project=1 --persons=10,11,12
+ *
+ * Options (defaults): --base-url=http://localhost:8080 --user=admin --password=admin
+ * --concurrency=200 --warmup-s=15 --duration-s=60 --include-subprojects=true
+ */
+public class LedgerLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opt = parse(args);
+        String baseUrl = opt.getOrDefault("base-url", "http://localhost:8080");
+        String label = opt.getOrDefault("label", "run");
+        long projectId = Long.parseLong(required(opt, "project"));
+        long[] persons = Arrays.stream(required(opt, "persons").split(",")).map(String::trim).mapToLong(Long::parseLong).toArray();
+        int concurrency = Integer.parseInt(opt.getOrDefault("concurrency", "200"));
+        int warmupS = Integer.parseInt(opt.getOrDefault("warmup-s", "15"));
+        int durationS = Integer.parseInt(opt.getOrDefault("duration-s", "60"));
+        String subprojects = opt.getOrDefault("include-subprojects", "true");
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(Math.max(4, concurrency / 10)))
+                .build();
+        String token = login(client, baseUrl, opt.getOrDefault("user", "admin"), opt.getOrDefault("password", "admin"));
+
+        long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupS);
+        long end = warmupEnd + TimeUnit.SECONDS.toNanos(durationS);
+        AtomicLong errors = new AtomicLong();
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        List<Future<long[]>> results = new ArrayList<>();
+        for (int w = 0; w < concurrency; w++) {
+            long seed = w;
+            results.add(workers.submit(() -> {
+                Random rnd = new Random(seed);
+                long[] lat = new long[1024];
+                int n = 0;
+                while (true) {
+                    long start = System.nanoTime();
+                    if (start >= end) break;
+                    HttpRequest req = HttpRequest.newBuilder(URI.create(baseUrl + path(rnd, projectId, persons, subprojects)))
+                            .header("Authorization", "Bearer " + token)
+                            .timeout(Duration.ofSeconds(30))
+                            .GET()
+                            .build();
+                    boolean ok;
+                    try {
+                        ok = client.send(req, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+                    } catch (Exception e) {
+                        ok = false;
+                    }
+                    long took = System.nanoTime() - start;
+                    if (start < warmupEnd) continue;
+                    if (!ok) {
+                        errors.incrementAndGet();
+                        continue;
+                    }
+                    if (n == lat.length) lat = Arrays.copyOf(lat, n * 2);
+                    lat[n++] = took;
+                }
+                return Arrays.copyOf(lat, n);
+            }));
+        }
+
+        long[] all = new long[0];
+        for (Future<long[]> f : results) {
+            long[] part = f.get();
+            int at = all.length;
+            all = Arrays.copyOf(all, at + part.length);
+            System.arraycopy(part, 0, all, at, part.length);
+        }
+        workers.shutdown();
+        Arrays.sort(all);
+
+        System.out.printf(Locale.ROOT,
+                "%s: concurrency=%d requests=%d errors=%d throughput=%.1f req/s p50=%.1f ms p95=%.1f ms p99=%.1f ms max=%.1f ms%n",
+                label, concurrency, all.length, errors.get(), all.length / (double) durationS,
+                ms(percentile(all, 0.50)), ms(percentile(all, 0.95)), ms(percentile(all, 0.99)),
+                ms(all.length == 0 ? 0 : all[all.length - 1]));
+        System.exit(0);
+    }
+
+    private static String path(Random rnd, long projectId, long[] persons, String subprojects) {
+        long person = persons[rnd.nextInt(persons.length)];
+        int pick = rnd.nextInt(10);
+        if (pick < 5) {
+            return "/api/v1/transactions/ledger?projectId=" + projectId + "&personId=" + person
+                    + "&includeSubprojects=" + subprojects;
+        }
+        if (pick < 8 || persons.length < 2) {
+            return "/api/v1/transactions/person-balance?projectId=" + projectId + "&personId=" + person
+                    + "&includeSubprojects=" + subprojects;
+        }
+        long other = persons[rnd.nextInt(persons.length)];
+        return "/api/v1/transactions/pair-balance?projectId=" + projectId + "&fromPersonId=" + person
+                + "&toPersonId=" + other + "&includeSubprojects=" + subprojects;
+    }
+
+    private static String login(HttpClient client, String baseUrl, String user, String password) throws Exception {
+        String form = "username=" + URLEncoder.encode(user, StandardCharsets.UTF_8)
+                + "&password=" + URLEncoder.encode(password, StandardCharsets.UTF_8);
+        HttpResponse<String> res = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        Matcher m = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"").matcher(res.body());
+        if (res.statusCode() != 200 || !m.find()) {
+            throw new IllegalStateException("login failed: HTTP " + res.statusCode() + " " + res.body());
+        }
+        return m.group(1);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> out = new HashMap<>();
+        for (String a : args) {
+            if (!a.startsWith("--")) continue;
+            int eq = a.indexOf('=');
+            if (eq > 2) out.put(a.substring(2, eq), a.substring(eq + 1));
+        }
+        return out;
+    }
+
+    private static String required(Map<String, String> opt, String name) {
+        String v = opt.get(name);
+        if (v == null || v.isBlank()) throw new IllegalArgumentException("--" + name + " is required");
+        return v;
+    }
+}
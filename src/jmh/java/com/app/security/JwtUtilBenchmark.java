@@ -0,0 +1,65 @@
+package com.app.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request token cost:
+ *  - rebuildKeyAndParser: what JwtUtil did before (new key + parser on every call)
+ *  - sharedParser:        pre-built key and parser (signature check + claims parse)
+ *  - cacheHit:            VerifiedTokenCache lookup (SHA-256 of the token + map get)
+ *
+ * mvn -Pjmh test-compile exec:exec -Djmh.args=JwtUtilBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    private static final String SECRET = "benchmarkSecretKey-0123456789abcdef0123456789";
+
+    private JwtUtil jwtUtil;
+    private VerifiedTokenCache cache;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil("k1:" + SECRET, "k1", 3_600_000);
+        cache = new VerifiedTokenCache(10_000, 300);
+        token = jwtUtil.generateToken("admin", List.of("ADMIN"));
+
+        Claims claims = jwtUtil.parseClaims(token);
+        List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_ADMIN"));
+        cache.put(token, new VerifiedTokenCache.Entry(claims.getSubject(), authorities,
+                claims.getExpiration().getTime(), claims.getId(), claims.getIssuedAt().getTime()));
+    }
+
+    @Benchmark
+    public Claims rebuildKeyAndParser() {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    @Benchmark
+    public Claims sharedParser() {
+        return jwtUtil.parseClaims(token);
+    }
+
+    @Benchmark
+    public VerifiedTokenCache.Entry cacheHit() {
+        return cache.get(token);
+    }
+}
@@ -0,0 +1,58 @@
+package com.app.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation matching per candidate row: remaining and editable remaining amounts of every
+ * transaction (for a debt) or debt (for a transaction) of the person, with one allocation
+ * being edited, as in the candidate lists of TransactionTrackService.
+ *
+ * mvn -Pjmh test-compile exec:exec -Djmh.args=AllocationCandidateBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AllocationCandidateBenchmark {
+
+    @Param({"100", "5000"})
+    private int candidates;
+
+    private BigDecimal[] amounts;
+    private BigDecimal[] allocated;
+    private LocalDateTime registered;
+    private Long editingId;
+    private BigDecimal editingOldAmount;
+
+    @Setup
+    public void setUp() {
+        amounts = BenchmarkData.amounts(candidates);
+        allocated = BenchmarkData.allocated(amounts);
+        registered = LocalDateTime.of(2024, 1, 1, 10, 0);
+        editingId = (long) candidates / 2;
+        editingOldAmount = allocated[candidates / 2];
+    }
+
+    @Benchmark
+    public void transactionCandidates(Blackhole bh) {
+        for (int i = 0; i < candidates; i++) {
+            bh.consume(TransactionTrackService.transactionCandidate((long) i, "TX", registered,
+                    amounts[i], allocated[i], editingId, editingOldAmount));
+        }
+    }
+
+    @Benchmark
+    public void debtCandidates(Blackhole bh) {
+        for (int i = 0; i < candidates; i++) {
+            bh.consume(TransactionTrackService.debtCandidate((long) i, "شخص", registered,
+                    amounts[i], allocated[i], editingId, editingOldAmount));
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.app.service;
+
+import com.app.dto.itemcategory.ItemCategoryResponse;
+import com.app.dto.transaction.LedgerRowResponse;
+import com.app.enums.PaymentTypes;
+import com.app.enums.TransactionTypes;
+import com.app.model.Person;
+import com.app.model.Project;
+import com.app.model.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic datasets for the service benchmarks. Every generator starts its own Random
+ * from SEED, so a given size always produces the same data, whatever ran before it;
+ * results of two builds are comparable only for the same seed and sizes.
+ */
+final class BenchmarkData {
+
+    static final long SEED = 20240501L;
+
+    private static final String[] WORDS = {
+            "سیمان", "میلگرد", "آجر", "گچ", "کاشی", "سرامیک", "لوله", "کابل",
+            "پنجره", "درب", "ایزوگام", "بتن", "رنگ", "شیشه", "پروفیل", "Steel"
+    };
+
+    private static final PaymentTypes[] PAYMENT_TYPES = PaymentTypes.values();
+    private static final TransactionTypes[] TRANSACTION_TYPES = TransactionTypes.values();
+
+    private BenchmarkData() {}
+
+    /**
+     * Ledger rows in ledger order; about a third are outgoing (negative delta), a few have no delta.
+     */
+    static List<LedgerRowResponse> ledgerRows(int n) {
+        Random rnd = new Random(SEED);
+        LocalDateTime t = LocalDateTime.of(2023, 3, 21, 8, 0);
+        List<LedgerRowResponse> rows = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            t = t.plusMinutes(1 + rnd.nextInt(600));
+            BigDecimal amount = amount(rnd);
+            BigDecimal delta = rnd.nextInt(50) == 0 ? null : (rnd.nextInt(3) == 0 ? amount.negate() : amount);
+            rows.add(new LedgerRowResponse((long) i + 1, t, "TX-" + (i + 1), 10L, 20L + rnd.nextInt(40),
+                    amount, delta, BigDecimal.ZERO, rnd.nextBoolean() ? null : title(rnd)));
+        }
+        return rows;
+    }
+
+    /**
+     * Flat project rows ordered by id; each non-root picks a random earlier parent, so depth is roughly log(n).
+     */
+    static List<ProjectTreeCache.Row> projectRows(int n) {
+        Random rnd = new Random(SEED);
+        List<ProjectTreeCache.Row> rows = new ArrayList<>(n);
+        for (int i = 1; i <= n; i++) {
+            Long parentId = i <= 5 ? null : (long) (1 + rnd.nextInt(i - 1));
+            rows.add(new ProjectTreeCache.Row(i, parentId, "پروژه " + title(rnd) + " " + i,
+                    rnd.nextInt(4) == 0 ? title(rnd) : null));
+        }
+        return rows;
+    }
+
+    static List<ItemCategoryResponse> categoryRows(int n) {
+        Random rnd = new Random(SEED);
+        List<ItemCategoryResponse> rows = new ArrayList<>(n);
+        for (int i = 1; i <= n; i++) {
+            Long parentId = i <= 10 ? null : (long) (1 + rnd.nextInt(i - 1));
+            rows.add(new ItemCategoryResponse((long) i, title(rnd) + " " + i, parentId,
+                    rnd.nextInt(4) == 0 ? title(rnd) : null));
+        }
+        return rows;
+    }
+
+    static List<Person> persons(int n) {
+        Random rnd = new Random(SEED);
+        List<Person> persons = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Person p = new Person();
+            boolean legal = rnd.nextInt(4) == 0;
+            p.setLegal(legal);
+            if (legal) {
+                p.setCompanyName("شرکت " + title(rnd));
+            } else {
+                p.setName(WORDS[rnd.nextInt(WORDS.length)]);
+                p.setLastName(title(rnd));
+            }
+            persons.add(p);
+        }
+        return persons;
+    }
+
+    /**
+     * Transactions between a pool of 200 persons in one project.
+     */
+    static List<Transaction> transactions(int n) {
+        Random rnd = new Random(SEED);
+        Project project = new Project();
+        project.setTitle("پروژه");
+        List<Person> persons = persons(200);
+        LocalDateTime t = LocalDateTime.of(2023, 3, 21, 8, 0);
+        List<Transaction> txs = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            t = t.plusMinutes(1 + rnd.nextInt(600));
+            Transaction tx = new Transaction();
+            tx.setProject(project);
+            tx.setFromPerson(persons.get(rnd.nextInt(persons.size())));
+            tx.setToPerson(persons.get(rnd.nextInt(persons.size())));
+            tx.setCode("TX-" + (i + 1));
+            tx.setDateDue(LocalDate.from(t).plusDays(rnd.nextInt(90)));
+            tx.setAmountPaid(amount(rnd));
+            tx.setPaymentType(PAYMENT_TYPES[rnd.nextInt(PAYMENT_TYPES.length)].getCode());
+            tx.setTransactionType(TRANSACTION_TYPES[rnd.nextInt(TRANSACTION_TYPES.length)].getCode());
+            tx.setDateRegistered(t);
+            tx.setDsc(rnd.nextBoolean() ? null : title(rnd));
+            txs.add(tx);
+        }
+        return txs;
+    }
+
+    /**
+     * Allocated share of each amount: none, partial or all of it.
+     */
+    static BigDecimal[] allocated(BigDecimal[] amounts) {
+        Random rnd = new Random(SEED + 1);
+        BigDecimal[] out = new BigDecimal[amounts.length];
+        for (int i = 0; i < amounts.length; i++) {
+            out[i] = switch (rnd.nextInt(3)) {
+                case 0 -> BigDecimal.ZERO;
+                case 1 -> amounts[i].divideToIntegralValue(BigDecimal.valueOf(2 + rnd.nextInt(5)));
+                default -> amounts[i];
+            };
+        }
+        return out;
+    }
+
+    static BigDecimal[] amounts(int n) {
+        Random rnd = new Random(SEED);
+        BigDecimal[] out = new BigDecimal[n];
+        for (int i = 0; i < n; i++) out[i] = amount(rnd);
+        return out;
+    }
+
+    // whole rials, 10 thousand to 5 billion
+    private static BigDecimal amount(Random rnd) {
+        return BigDecimal.valueOf(10_000L + (long) (rnd.nextDouble() * 5_000_000_000L));
+    }
+
+    private static String title(Random rnd) {
+        return WORDS[rnd.nextInt(WORDS.length)] + " " + WORDS[rnd.nextInt(WORDS.length)];
+    }
+}
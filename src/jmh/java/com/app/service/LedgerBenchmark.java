@@ -0,0 +1,37 @@
+package com.app.service;
+
+import com.app.dto.transaction.LedgerRowResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Running balance over the rows of one person's ledger (TransactionService.withRunningBalance),
+ * i.e. everything in GET /transactions/ledger after the query itself.
+ *
+ * mvn -Pjmh test-compile exec:exec -Djmh.args=LedgerBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LedgerBenchmark {
+
+    @Param({"100", "10000"})
+    private int rows;
+
+    private List<LedgerRowResponse> ledger;
+
+    @Setup
+    public void setUp() {
+        ledger = BenchmarkData.ledgerRows(rows);
+    }
+
+    @Benchmark
+    public List<LedgerRowResponse> runningBalance() {
+        return TransactionService.withRunningBalance(ledger);
+    }
+}
@@ -0,0 +1,53 @@
+package com.app.service;
+
+import com.app.model.Person;
+import com.app.model.Transaction;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to response mapping for a full list page (toResponse per row). Entities are
+ * detached and fully populated, so this is the mapping alone, without lazy loading.
+ *
+ * mvn -Pjmh test-compile exec:exec -Djmh.args=ResponseMappingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseMappingBenchmark {
+
+    @Param({"1000"})
+    private int rows;
+
+    private List<Transaction> transactions;
+    private BigDecimal[] allocated;
+    private List<Person> persons;
+
+    @Setup
+    public void setUp() {
+        transactions = BenchmarkData.transactions(rows);
+        allocated = BenchmarkData.allocated(transactions.stream().map(Transaction::getAmountPaid).toArray(BigDecimal[]::new));
+        persons = BenchmarkData.persons(rows);
+    }
+
+    @Benchmark
+    public void transactions(Blackhole bh) {
+        for (int i = 0; i < transactions.size(); i++) {
+            bh.consume(TransactionService.toResponse(transactions.get(i), allocated[i]));
+        }
+    }
+
+    @Benchmark
+    public void persons(Blackhole bh) {
+        for (Person p : persons) {
+            bh.consume(PersonService.toResponse(p));
+        }
+    }
+}
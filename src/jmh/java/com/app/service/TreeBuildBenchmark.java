@@ -0,0 +1,49 @@
+package com.app.service;
+
+import com.app.dto.itemcategory.ItemCategoryResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snapshot rebuild cost after a project or category change, from the flat rows on:
+ *  - projectTree:  link parents/children, serialize the tree to JSON and hash the ETag
+ *  - categoryTree: link parents/children and sort every level by Persian collation
+ *
+ * mvn -Pjmh test-compile exec:exec -Djmh.args=TreeBuildBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TreeBuildBenchmark {
+
+    @Param({"200", "5000"})
+    private int nodes;
+
+    private ProjectTreeCache projectTreeCache;
+    private List<ProjectTreeCache.Row> projectRows;
+    private List<ItemCategoryResponse> categoryRows;
+
+    @Setup
+    public void setUp() {
+        // build() doesn't query; only rebuild() needs the JdbcTemplate
+        projectTreeCache = new ProjectTreeCache(null, new ObjectMapper(), null);
+        projectRows = BenchmarkData.projectRows(nodes);
+        categoryRows = BenchmarkData.categoryRows(nodes);
+    }
+
+    @Benchmark
+    public ProjectTreeCache.Snapshot projectTree() {
+        return projectTreeCache.build(projectRows, 0);
+    }
+
+    @Benchmark
+    public ItemCategoryTreeCache.Snapshot categoryTree() {
+        return ItemCategoryTreeCache.build(categoryRows, 0);
+    }
+}
@@ -0,0 +1,85 @@
+package com.app.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Replication lag probe: writes a heartbeat (replica_heartbeat) on the primary and reads it
+ * back from the replica. Reads are routed to the replica only while the lag is under
+ * app.datasource.replica.max-lag-ms and the replica answers; otherwise to the primary.
+ */
+@Component
+@ConditionalOnProperty(name = "app.datasource.replica.url")
+public class ReplicaLagMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final ReadWriteRoutingDataSource routing;
+    private final long maxLagMillis;
+    private volatile long lastLagMillis = -1;
+
+    public ReplicaLagMonitor(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+                             @Qualifier("replicaDataSource") HikariDataSource replicaDataSource,
+                             ReadWriteRoutingDataSource routing,
+                             @Value("${app.datasource.replica.max-lag-ms:5000}") long maxLagMillis) {
+        this.primary = new JdbcTemplate(primaryDataSource);
+        this.replica = new JdbcTemplate(replicaDataSource);
+        this.replica.setQueryTimeout(2);
+        this.routing = routing;
+        this.maxLagMillis = maxLagMillis;
+    }
+
+    /**
+     * -1 while unknown (replica unreachable / no heartbeat yet).
+     */
+    public long getLastLagMillis() {
+        return lastLagMillis;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.heartbeat-ms:1000}")
+    public void heartbeat() {
+        Instant now = Instant.now();
+        try {
+            primary.update("update replica_heartbeat set beat_at = ? where id = 1", Timestamp.from(now));
+        } catch (RuntimeException e) {
+            // primary trouble is not the replica's; keep the last decision
+            log.debug("Replica heartbeat write failed: {}", e.toString());
+            return;
+        }
+
+        boolean usable;
+        try {
+            Timestamp seen = replica.queryForObject("select beat_at from replica_heartbeat where id = 1", Timestamp.class);
+            // the replica is at most this far behind (bounded below by the heartbeat interval)
+            long lag = seen == null ? Long.MAX_VALUE : Math.max(0, Duration.between(seen.toInstant(), now).toMillis());
+            lastLagMillis = lag;
+            usable = lag <= maxLagMillis;
+        } catch (RuntimeException e) {
+            lastLagMillis = -1;
+            usable = false;
+        }
+
+        if (usable != routing.isReplicaUsable()) {
+            if (usable) {
+                log.info("Replica in sync (lag {} ms), routing read-only transactions to it", lastLagMillis);
+            } else {
+                log.warn("Replica unavailable or lagging (lag {} ms, max {} ms), routing reads to the primary",
+                        lastLagMillis, maxLagMillis);
+            }
+        }
+        routing.setReplicaUsable(usable);
+    }
+}
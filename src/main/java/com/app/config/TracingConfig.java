@@ -0,0 +1,32 @@
+package com.app.config;
+
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.aop.ObservedAspect;
+import io.opentelemetry.exporter.logging.LoggingSpanExporter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * In-process tracing: HTTP requests (Boot's server observation) -> @Observed services ->
+ * hand-written SQL (QueryMetrics). Spans go through the OpenTelemetry SDK; the logging
+ * exporter writes finished spans to the application log, no collector needed. It is only
+ * registered with app.tracing.exporter=logging (the "tracing" profile): one log line per span
+ * is too much for production.
+ */
+@Configuration
+public class TracingConfig {
+
+    // makes @Observed (service classes) create observations: a span plus the app.service timer
+    @Bean
+    public ObservedAspect observedAspect(ObservationRegistry observationRegistry) {
+        return new ObservedAspect(observationRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.tracing.exporter", havingValue = "logging")
+    public SpanExporter loggingSpanExporter() {
+        return LoggingSpanExporter.create();
+    }
+}
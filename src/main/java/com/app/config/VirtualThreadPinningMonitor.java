@@ -0,0 +1,106 @@
+package com.app.config;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Reports where virtual threads get pinned to their carrier (blocking inside synchronized
+ * or native code), e.g. JDBC driver I/O under a monitor. Listens to the JFR
+ * jdk.VirtualThreadPinned event in-process; each new call site is logged once with its
+ * stack, and a per-site count is reported periodically.
+ */
+@Component
+@ConditionalOnProperty(name = {"spring.threads.virtual.enabled", "app.threads.pinning-monitor.enabled"}, havingValue = "true")
+public class VirtualThreadPinningMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    private static final int LOGGED_FRAMES = 12;
+
+    private final Duration threshold;
+    private final Map<String, LongAdder> sites = new ConcurrentHashMap<>();
+    private volatile RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(@Value("${app.threads.pinning-monitor.threshold-ms:20}") long thresholdMs) {
+        this.threshold = Duration.ofMillis(thresholdMs);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (Runtime.version().feature() < 21) {
+            log.warn("spring.threads.virtual.enabled is set but the JVM is {}; virtual threads need Java 21", Runtime.version());
+            return;
+        }
+        RecordingStream rs = new RecordingStream();
+        rs.enable("jdk.VirtualThreadPinned").withThreshold(threshold).withStackTrace();
+        rs.onEvent("jdk.VirtualThreadPinned", this::onPinned);
+        rs.startAsync();
+        stream = rs;
+        log.info("Virtual thread pinning monitor started (threshold {} ms)", threshold.toMillis());
+    }
+
+    @Scheduled(fixedDelayString = "${app.threads.pinning-monitor.report-interval-ms:60000}")
+    public void report() {
+        if (sites.isEmpty()) return;
+        String summary = sites.entrySet().stream()
+                .map(e -> Map.entry(e.getKey(), e.getValue().sumThenReset()))
+                .filter(e -> e.getValue() > 0)
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .map(e -> e.getKey() + "=" + e.getValue())
+                .collect(Collectors.joining(", "));
+        if (!summary.isEmpty()) log.info("Pinned virtual threads since last report: {}", summary);
+    }
+
+    @PreDestroy
+    void stop() {
+        RecordingStream rs = stream;
+        if (rs != null) rs.close();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        List<RecordedFrame> frames = frames(event.getStackTrace());
+        String site = site(frames);
+
+        boolean first = !sites.containsKey(site);
+        sites.computeIfAbsent(site, s -> new LongAdder()).increment();
+        if (first) {
+            String stack = frames.stream()
+                    .limit(LOGGED_FRAMES)
+                    .map(f -> "\tat " + f.getMethod().getType().getName() + "." + f.getMethod().getName()
+                            + "(line " + f.getLineNumber() + ")")
+                    .collect(Collectors.joining("\n"));
+            log.warn("Virtual thread pinned for {} ms at {}\n{}", event.getDuration().toMillis(), site, stack);
+        }
+    }
+
+    private static List<RecordedFrame> frames(RecordedStackTrace trace) {
+        return trace == null ? List.of() : trace.getFrames();
+    }
+
+    // first frame outside the JDK: the code that blocked while holding a monitor
+    private static String site(List<RecordedFrame> frames) {
+        for (RecordedFrame f : frames) {
+            String type = f.getMethod().getType().getName();
+            if (type.startsWith("java.") || type.startsWith("jdk.") || type.startsWith("sun.")) continue;
+            return type + "." + f.getMethod().getName();
+        }
+        return "unknown";
+    }
+}
@@ -24,4 +24,10 @@ public class AdminUserController {
     public ResponseEntity<AdminUserDTO> createAdminUser(@Valid @RequestBody AdminUserDTO dto) {
         return ResponseEntity.status(201).body(adminUserService.create(dto));
     }
+
+    @PostMapping("/{username}/revoke-sessions")
+    public ResponseEntity<Void> revokeSessions(@PathVariable String username) {
+        adminUserService.revokeSessions(username);
+        return ResponseEntity.noContent().build();
+    }
 }
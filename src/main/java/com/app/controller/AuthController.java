@@ -3,48 +3,110 @@ package com.app.controller;
 import com.app.dto.common.ErrorResponse;
 import com.app.repository.AdminUserRepository;
 import com.app.security.JwtUtil;
+import com.app.security.LoginRateLimiter;
+import com.app.security.PasswordVerifier;
+import com.app.service.AuthTokenService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
 
     private final JwtUtil jwtUtil;
-    private final PasswordEncoder passwordEncoder;
     private final AdminUserRepository userRepo;
+    private final LoginRateLimiter loginRateLimiter;
+    private final PasswordVerifier passwordVerifier;
+    private final AuthTokenService authTokenService;
+    private final Executor taskExecutor;
 
-    public AuthController(JwtUtil jwtUtil, PasswordEncoder passwordEncoder, AdminUserRepository userRepo) {
+    public AuthController(JwtUtil jwtUtil,
+                          AdminUserRepository userRepo,
+                          LoginRateLimiter loginRateLimiter,
+                          PasswordVerifier passwordVerifier,
+                          AuthTokenService authTokenService,
+                          @Qualifier("applicationTaskExecutor") Executor taskExecutor) {
         this.jwtUtil = jwtUtil;
-        this.passwordEncoder = passwordEncoder;
         this.userRepo = userRepo;
+        this.loginRateLimiter = loginRateLimiter;
+        this.passwordVerifier = passwordVerifier;
+        this.authTokenService = authTokenService;
+        this.taskExecutor = taskExecutor;
     }
 
+    /**
+     * The BCrypt check runs on PasswordVerifier's pool and the servlet thread is released
+     * meanwhile (async response), so logins can't tie up the workers serving other endpoints.
+     * Issuing the tokens (refresh-token insert) moves on to the application task executor,
+     * so the two verify threads only ever wait on BCrypt, not on the database.
+     */
     @PostMapping(
             value = "/login",
             produces = MediaType.APPLICATION_JSON_VALUE
     )
-    public ResponseEntity<?> login(@RequestParam String username, @RequestParam String password) {
+    public CompletableFuture<ResponseEntity<?>> login(@RequestParam String username,
+                                                      @RequestParam String password,
+                                                      HttpServletRequest request) {
 
-        var userOpt = userRepo.findByUsername(username);
-        if (userOpt.isEmpty()) {
-            return ResponseEntity.status(401)
-                    .body(ErrorResponse.of("AUTH_FAILED", "نام کاربری یا رمز عبور اشتباه است."));
-        }
+        loginRateLimiter.acquire(username, request.getRemoteAddr());
 
-        var user = userOpt.get();
-        if (!passwordEncoder.matches(password, user.getPassword())) {
-            return ResponseEntity.status(401)
-                    .body(ErrorResponse.of("AUTH_FAILED", "نام کاربری یا رمز عبور اشتباه است."));
-        }
+        // unknown user -> dummy hash, same cost and same answer as a wrong password
+        String storedHash = userRepo.findByUsername(username).map(u -> u.getPassword()).orElse(null);
+
+        return passwordVerifier.matches(password, storedHash).thenApplyAsync(ok -> {
+            if (!ok) {
+                return ResponseEntity.status(401)
+                        .body(ErrorResponse.of("AUTH_FAILED", "نام کاربری یا رمز عبور اشتباه است."));
+            }
+
+            // roles travel in the access token, so authenticated requests don't reload the user
+            return ResponseEntity.ok(toBody(authTokenService.issue(username)));
+        }, taskExecutor);
+    }
+
+    // new access token + rotated refresh token
+    @PostMapping(
+            value = "/refresh",
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<Map<String, Object>> refresh(@RequestParam String refreshToken) {
+        return ResponseEntity.ok(toBody(authTokenService.refresh(refreshToken)));
+    }
 
-        String token = jwtUtil.generateToken(username);
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestParam(required = false) String refreshToken,
+                                       @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        String jti = null;
+        long expiresAt = 0;
+        if (authorization != null && authorization.startsWith("Bearer ")) {
+            try {
+                Claims claims = jwtUtil.parseClaims(authorization.substring(7));
+                jti = claims.getId();
+                expiresAt = claims.getExpiration().getTime();
+            } catch (JwtException | IllegalArgumentException ignored) {
+                // already invalid: nothing to revoke
+            }
+        }
+        authTokenService.logout(refreshToken, jti, expiresAt);
+        return ResponseEntity.noContent().build();
+    }
 
-        // JSON استاندارد برای فرانت
-        return ResponseEntity.ok(Map.of("token", token));
+    // JSON استاندارد برای فرانت ("token" = access token, kept for existing clients)
+    private Map<String, Object> toBody(AuthTokenService.TokenPair pair) {
+        return Map.of(
+                "token", pair.accessToken(),
+                "refreshToken", pair.refreshToken(),
+                "expiresIn", pair.expiresIn()
+        );
     }
 }
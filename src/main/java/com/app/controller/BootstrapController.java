@@ -0,0 +1,41 @@
+package com.app.controller;
+
+import com.app.dto.bootstrap.BootstrapResponse;
+import com.app.service.BootstrapService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+@RestController
+@RequestMapping("/api/v1/bootstrap")
+public class BootstrapController {
+
+    private final BootstrapService bootstrapService;
+
+    public BootstrapController(BootstrapService bootstrapService) {
+        this.bootstrapService = bootstrapService;
+    }
+
+    /**
+     * Units, item category tree, items and project tree in one (gzip-compressed) response.
+     * since = version of the client's copy -> only the changed tables are returned.
+     * The ETag is the version token; 304 when nothing changed.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BootstrapResponse> bootstrap(@RequestParam(required = false) String since,
+                                                       WebRequest request) {
+        String version = bootstrapService.currentVersion();
+        if (request.checkNotModified(version)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(version).build();
+        }
+
+        BootstrapResponse body = bootstrapService.get(since);
+        return ResponseEntity.ok()
+                .eTag(body.version())
+                .cacheControl(CacheControl.noCache())
+                .body(body);
+    }
+}
@@ -73,16 +73,17 @@ public class DebtController {
     // ---------------- LISTS ----------------
 
     // Open debts (remaining > 0)
-    // GET /api/v1/debts/open?projectId=1&personId=10
+    // GET /api/v1/debts/open?projectId=1&personId=10&includeSubprojects=true
     @GetMapping(
             value = "/open",
             produces = MediaType.APPLICATION_JSON_VALUE
     )
     public ResponseEntity<List<Map<String, Object>>> openDebts(
             @RequestParam Long projectId,
-            @RequestParam(required = false) Long personId
+            @RequestParam(required = false) Long personId,
+            @RequestParam(defaultValue = "false") boolean includeSubprojects
     ) {
-        return ResponseEntity.ok(debtService.openDebts(projectId, personId));
+        return ResponseEntity.ok(debtService.openDebts(projectId, personId, includeSubprojects));
     }
 
     // All debts (no filter)
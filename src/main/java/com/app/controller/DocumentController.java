@@ -1,26 +1,55 @@
 package com.app.controller;
 
 import com.app.dto.document.DocumentMetaResponse;
+import com.app.dto.document.UploadInitRequest;
+import com.app.dto.document.UploadStatusResponse;
+import com.app.enums.DocumentOwnerType;
 import com.app.model.DebtDocument;
 import com.app.model.TransactionDocument;
+import com.app.service.ChunkedUploadService;
+import com.app.service.DocumentExportService;
+import com.app.service.DocumentPreviewService;
 import com.app.service.DocumentService;
+import com.app.service.UploadAdmission;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.zip.CRC32;
 
 @RestController
 @RequestMapping("/api/v1")
 public class DocumentController {
 
-    private static final long MAX_BYTES = 10L * 1024 * 1024; // 10MB
-
     private final DocumentService documentService;
-
-    public DocumentController(DocumentService documentService) {
+    private final ChunkedUploadService chunkedUploadService;
+    private final DocumentExportService documentExportService;
+    private final DocumentPreviewService documentPreviewService;
+    private final UploadAdmission uploadAdmission;
+
+    private final long maxUploadBytes;
+
+    public DocumentController(DocumentService documentService,
+                              ChunkedUploadService chunkedUploadService,
+                              DocumentExportService documentExportService,
+                              DocumentPreviewService documentPreviewService,
+                              UploadAdmission uploadAdmission,
+                              @Value("${app.documents.multipart.max-bytes:10485760}") long maxUploadBytes) {
         this.documentService = documentService;
+        this.chunkedUploadService = chunkedUploadService;
+        this.documentExportService = documentExportService;
+        this.documentPreviewService = documentPreviewService;
+        this.uploadAdmission = uploadAdmission;
+        this.maxUploadBytes = maxUploadBytes;
     }
 
     // ---------------- TRANSACTION DOCS ----------------
@@ -39,19 +68,22 @@ public class DocumentController {
         if (file.isEmpty() || file.getSize() == 0) {
             throw new IllegalArgumentException("فایل خالی است.");
         }
-        if (file.getSize() > MAX_BYTES) {
-            throw new IllegalArgumentException("حداکثر حجم فایل 10 مگابایت است.");
+        if (file.getSize() > maxUploadBytes) {
+            throw new IllegalArgumentException("حداکثر حجم فایل " + (maxUploadBytes / (1024 * 1024)) + " مگابایت است.");
         }
 
-        byte[] bytes = file.getBytes();
-
-        Long docId = documentService.uploadTransactionDoc(
-                transactionId,
-                bytes,
-                safeName(file.getOriginalFilename()),
-                safe(file.getContentType()),
-                safe(dsc)
-        );
+        Long docId;
+        try (UploadAdmission.Ticket ignored = uploadAdmission.admit(file.getSize());
+             InputStream in = file.getInputStream()) {
+            docId = documentService.uploadTransactionDoc(
+                    transactionId,
+                    in,
+                    file.getSize(),
+                    safeName(file.getOriginalFilename()),
+                    safe(file.getContentType()),
+                    safe(dsc)
+            );
+        }
 
         return ResponseEntity.status(HttpStatus.CREATED).body(java.util.Map.of("documentId", docId));
     }
@@ -62,7 +94,7 @@ public class DocumentController {
     }
 
     @GetMapping("/transaction-documents/{docId}/download")
-    public ResponseEntity<byte[]> downloadTransactionDoc(@PathVariable Long docId) {
+    public ResponseEntity<StreamingResponseBody> downloadTransactionDoc(@PathVariable Long docId) {
         TransactionDocument doc = documentService.getTransactionDoc(docId);
 
         String filename = (doc.getFileName() != null && !doc.getFileName().isBlank())
@@ -77,7 +109,7 @@ public class DocumentController {
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + safeName(filename) + "\"")
                 .contentType(mt)
-                .body(doc.getDoc());
+                .body(out -> documentService.writeTransactionDocContent(docId, out));
     }
 
     @DeleteMapping("/transactions/{transactionId}/documents/{docId}")
@@ -102,19 +134,22 @@ public class DocumentController {
         if (file.isEmpty() || file.getSize() == 0) {
             throw new IllegalArgumentException("فایل خالی است.");
         }
-        if (file.getSize() > MAX_BYTES) {
-            throw new IllegalArgumentException("حداکثر حجم فایل 10 مگابایت است.");
+        if (file.getSize() > maxUploadBytes) {
+            throw new IllegalArgumentException("حداکثر حجم فایل " + (maxUploadBytes / (1024 * 1024)) + " مگابایت است.");
         }
 
-        byte[] bytes = file.getBytes();
-
-        Long docId = documentService.uploadDebtDoc(
-                debtId,
-                bytes,
-                safeName(file.getOriginalFilename()),
-                safe(file.getContentType()),
-                safe(dsc)
-        );
+        Long docId;
+        try (UploadAdmission.Ticket ignored = uploadAdmission.admit(file.getSize());
+             InputStream in = file.getInputStream()) {
+            docId = documentService.uploadDebtDoc(
+                    debtId,
+                    in,
+                    file.getSize(),
+                    safeName(file.getOriginalFilename()),
+                    safe(file.getContentType()),
+                    safe(dsc)
+            );
+        }
 
         return ResponseEntity.status(HttpStatus.CREATED).body(java.util.Map.of("documentId", docId));
     }
@@ -125,7 +160,7 @@ public class DocumentController {
     }
 
     @GetMapping("/debt-documents/{docId}/download")
-    public ResponseEntity<byte[]> downloadDebtDoc(@PathVariable Long docId) {
+    public ResponseEntity<StreamingResponseBody> downloadDebtDoc(@PathVariable Long docId) {
         DebtDocument doc = documentService.getDebtDoc(docId);
 
         String filename = (doc.getFileName() != null && !doc.getFileName().isBlank())
@@ -140,7 +175,7 @@ public class DocumentController {
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + safeName(filename) + "\"")
                 .contentType(mt)
-                .body(doc.getDoc());
+                .body(out -> documentService.writeDebtDocContent(docId, out));
     }
 
     @DeleteMapping("/debts/{debtId}/documents/{docId}")
@@ -149,6 +184,130 @@ public class DocumentController {
         return ResponseEntity.noContent().build();
     }
 
+    // ---------------- CHUNKED (RESUMABLE) UPLOADS ----------------
+    // 1) POST .../documents/uploads        -> uploadId + chunkSize
+    // 2) PUT  /document-uploads/{id}/chunks?offset=N  (raw bytes, offset = chunkIndex * chunkSize)
+    // 3) GET  /document-uploads/{id}        -> missing chunks (resume after reconnect)
+    // 4) POST /document-uploads/{id}/complete -> hash check + documentId
+
+    @PostMapping(
+            value = "/transactions/{transactionId}/documents/uploads",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<UploadStatusResponse> initTransactionUpload(@PathVariable Long transactionId,
+                                                                      @Valid @RequestBody UploadInitRequest req) {
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(chunkedUploadService.init(DocumentOwnerType.TRANSACTION, transactionId, req));
+    }
+
+    @PostMapping(
+            value = "/debts/{debtId}/documents/uploads",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<UploadStatusResponse> initDebtUpload(@PathVariable Long debtId,
+                                                               @Valid @RequestBody UploadInitRequest req) {
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(chunkedUploadService.init(DocumentOwnerType.DEBT, debtId, req));
+    }
+
+    @PutMapping(
+            value = "/document-uploads/{uploadId}/chunks",
+            consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<UploadStatusResponse> uploadChunk(@PathVariable String uploadId,
+                                                            @RequestParam long offset,
+                                                            @RequestHeader(value = HttpHeaders.CONTENT_LENGTH, required = false) Long contentLength,
+                                                            InputStream body) {
+        long bytes = contentLength != null && contentLength > 0 ? contentLength : chunkedUploadService.getChunkSize();
+        try (UploadAdmission.Ticket ignored = uploadAdmission.admit(bytes)) {
+            return ResponseEntity.ok(chunkedUploadService.writeChunk(uploadId, offset, body));
+        }
+    }
+
+    @GetMapping(value = "/document-uploads/{uploadId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<UploadStatusResponse> uploadStatus(@PathVariable String uploadId) {
+        return ResponseEntity.ok(chunkedUploadService.status(uploadId));
+    }
+
+    @PostMapping(value = "/document-uploads/{uploadId}/complete", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> completeUpload(@PathVariable String uploadId) {
+        Long docId = chunkedUploadService.complete(uploadId);
+        return ResponseEntity.status(HttpStatus.CREATED).body(java.util.Map.of("documentId", docId));
+    }
+
+    @DeleteMapping("/document-uploads/{uploadId}")
+    public ResponseEntity<Void> abortUpload(@PathVariable String uploadId) {
+        chunkedUploadService.abort(uploadId);
+        return ResponseEntity.noContent().build();
+    }
+
+    // ---------------- PREVIEWS ----------------
+    // 404 = not rendered yet (generation is queued); client shows a placeholder and retries later
+
+    @GetMapping("/transaction-documents/{docId}/preview")
+    public ResponseEntity<byte[]> transactionDocPreview(@PathVariable Long docId, WebRequest request) {
+        return previewResponse(documentPreviewService.getPreview(DocumentOwnerType.TRANSACTION, docId), request);
+    }
+
+    @GetMapping("/debt-documents/{docId}/preview")
+    public ResponseEntity<byte[]> debtDocPreview(@PathVariable Long docId, WebRequest request) {
+        return previewResponse(documentPreviewService.getPreview(DocumentOwnerType.DEBT, docId), request);
+    }
+
+    private ResponseEntity<byte[]> previewResponse(DocumentPreviewService.Preview preview, WebRequest request) {
+        if (preview == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(preview.bytes());
+        String etag = "\"" + Long.toHexString(crc.getValue()) + "-" + preview.bytes().length + "\"";
+
+        CacheControl cache = CacheControl.maxAge(Duration.ofDays(7)).cachePrivate();
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cache).build();
+        }
+
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cache)
+                .contentType(MediaType.parseMediaType(preview.contentType()))
+                .body(preview.bytes());
+    }
+
+    // ---------------- BUNDLE EXPORT ----------------
+
+    /**
+     * همه اسناد پرداخت‌ها و بدهی‌های یک پروژه/شخص در یک فایل ZIP (+ manifest.csv)
+     * from/to اختیاری هستند (فیلتر بر اساس date_registered پرداخت/بدهی)
+     *
+     * مثال:
+     * /api/v1/documents/export?projectId=1&personId=10&from=2025-01-01&to=2025-12-31
+     */
+    @GetMapping(value = "/documents/export", produces = "application/zip")
+    public ResponseEntity<StreamingResponseBody> exportDocuments(@RequestParam(required = false) Long projectId,
+                                                                 @RequestParam(required = false) Long personId,
+                                                                 @RequestParam(required = false) LocalDate from,
+                                                                 @RequestParam(required = false) LocalDate to) {
+        // fail fast with a normal 400 before the streaming response is committed
+        documentExportService.validateFilter(projectId, personId, from, to);
+
+        String filename = "documents"
+                + (projectId != null ? "_project-" + projectId : "")
+                + (personId != null ? "_person-" + personId : "")
+                + ".zip";
+
+        StreamingResponseBody body = out -> documentExportService.exportZip(projectId, personId, from, to, out);
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .body(body);
+    }
+
     private String safe(String s) {
         if (s == null) return null;
         String t = s.replace("\n", " ").replace("\r", " ").trim();
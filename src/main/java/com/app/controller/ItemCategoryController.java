@@ -57,4 +57,16 @@ public class ItemCategoryController {
     public ResponseEntity<List<ItemCategoryTreeNodeResponse>> getTree() {
         return ResponseEntity.ok(service.getTree());
     }
+
+    // GET /api/v1/item-categories/{id}/subtree
+    @GetMapping(value = "/{id}/subtree", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ItemCategoryTreeNodeResponse> getSubtree(@PathVariable Long id) {
+        return ResponseEntity.ok(service.getSubtree(id));
+    }
+
+    // GET /api/v1/item-categories/{id}/path   (root -> ... -> id)
+    @GetMapping(value = "/{id}/path", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<ItemCategoryResponse>> getPath(@PathVariable Long id) {
+        return ResponseEntity.ok(service.getPath(id));
+    }
 }
@@ -58,4 +58,11 @@ public class ItemController {
                                                      @RequestParam(required = false) Long categoryId) {
         return ResponseEntity.ok(service.search(q, categoryId));
     }
+
+    @GetMapping(value = "/autocomplete", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<ItemSuggestionResponse>> autocomplete(@RequestParam(required = false) String q,
+                                                                     @RequestParam(required = false) Long categoryId,
+                                                                     @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(service.autocomplete(q, categoryId, limit));
+    }
 }
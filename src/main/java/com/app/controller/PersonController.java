@@ -1,5 +1,6 @@
 package com.app.controller;
 
+import com.app.dto.common.CursorPage;
 import com.app.dto.person.PersonCreateRequest;
 import com.app.dto.person.PersonResponse;
 import com.app.dto.person.PersonUpdateRequest;
@@ -68,4 +69,15 @@ public class PersonController {
         Pageable pageable = PageRequest.of(page, size, Sort.by("id").descending());
         return ResponseEntity.ok(personService.search(q, pageable));
     }
+
+    // Keyset pagination: pass nextCursor from the previous page; no count unless withTotal=true
+    @GetMapping(value = "/seek", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<CursorPage<PersonResponse>> seek(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean withTotal
+    ) {
+        return ResponseEntity.ok(personService.seek(q, cursor, size, withTotal));
+    }
 }
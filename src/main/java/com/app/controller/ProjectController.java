@@ -1,11 +1,16 @@
 package com.app.controller;
 
 import com.app.dto.project.*;
+import com.app.service.ProjectRollupService;
 import com.app.service.ProjectService;
+import com.app.service.ProjectTreeCache;
 import jakarta.validation.Valid;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -14,9 +19,11 @@ import java.util.List;
 public class ProjectController {
 
     private final ProjectService projectService;
+    private final ProjectRollupService projectRollupService;
 
-    public ProjectController(ProjectService projectService) {
+    public ProjectController(ProjectService projectService, ProjectRollupService projectRollupService) {
         this.projectService = projectService;
+        this.projectRollupService = projectRollupService;
     }
 
     @PostMapping(
@@ -53,9 +60,41 @@ public class ProjectController {
         return ResponseEntity.noContent().build();
     }
 
-    // Extra: tree
+    // Extra: tree (pre-serialized snapshot; 304 when the client's ETag is current)
     @GetMapping(value = "/tree", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<ProjectTreeNode>> tree() {
-        return ResponseEntity.ok(projectService.getTree());
+    public ResponseEntity<byte[]> tree(WebRequest request) {
+        ProjectTreeCache.Snapshot snapshot = projectService.getTreeSnapshot();
+
+        if (request.checkNotModified(snapshot.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(snapshot.etag()).build();
+        }
+
+        return ResponseEntity.ok()
+                .eTag(snapshot.etag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.json());
+    }
+
+    /**
+     * درخت پروژه‌ها با جمع مالی هر گره:
+     * own* فقط خود پروژه، total* پروژه + همه زیرپروژه‌ها (پرداخت، بدهی، تسویه‌شده، مانده)
+     *
+     * مثال:
+     * /api/v1/projects/tree/rollup
+     */
+    @GetMapping(value = "/tree/rollup", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> treeRollup(WebRequest request) {
+        ProjectRollupService.Rollup rollup = projectRollupService.getRollup();
+
+        if (request.checkNotModified(rollup.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(rollup.etag()).build();
+        }
+
+        return ResponseEntity.ok()
+                .eTag(rollup.etag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(rollup.json());
     }
 }
@@ -54,6 +54,7 @@ public class TransactionController {
     /**
      * دفتر حساب شخص در پروژه (ورودی/خروجی + مانده تجمعی)
      * from/to اختیاری هستند (فیلتر بر اساس date_due)
+     * includeSubprojects=true: پروژه + همه زیرپروژه‌ها
      *
      * مثال:
      * /api/v1/transactions/ledger?projectId=1&personId=10&from=2025-01-01&to=2025-12-31
@@ -62,25 +63,29 @@ public class TransactionController {
     public ResponseEntity<List<LedgerRowResponse>> ledger(@RequestParam Long projectId,
                                                           @RequestParam Long personId,
                                                           @RequestParam(required = false) LocalDate from,
-                                                          @RequestParam(required = false) LocalDate to) {
-        return ResponseEntity.ok(transactionService.ledger(projectId, personId, from, to));
+                                                          @RequestParam(required = false) LocalDate to,
+                                                          @RequestParam(defaultValue = "false") boolean includeSubprojects) {
+        return ResponseEntity.ok(transactionService.ledger(projectId, personId, from, to, includeSubprojects));
     }
 
     /**
      * جمع کل دریافتی/پرداختی شخص در یک پروژه + مانده
+     * includeSubprojects=true: پروژه + همه زیرپروژه‌ها
      *
      * مثال:
-     * /api/v1/transactions/person-balance?projectId=1&personId=10
+     * /api/v1/transactions/person-balance?projectId=1&personId=10&includeSubprojects=true
      */
     @GetMapping("/person-balance")
     public ResponseEntity<PersonBalanceResponse> personBalance(@RequestParam Long projectId,
-                                                               @RequestParam Long personId) {
-        return ResponseEntity.ok(transactionService.personBalance(projectId, personId));
+                                                               @RequestParam Long personId,
+                                                               @RequestParam(defaultValue = "false") boolean includeSubprojects) {
+        return ResponseEntity.ok(transactionService.personBalance(projectId, personId, includeSubprojects));
     }
 
     /**
      * مانده خالص بین دو شخص در پروژه:
      * (جمع پرداخت‌های from->to) - (جمع پرداخت‌های to->from)
+     * includeSubprojects=true: پروژه + همه زیرپروژه‌ها
      *
      * مثال:
      * /api/v1/transactions/pair-balance?projectId=1&fromPersonId=5&toPersonId=10
@@ -88,7 +93,8 @@ public class TransactionController {
     @GetMapping("/pair-balance")
     public ResponseEntity<PairBalanceResponse> pairBalance(@RequestParam Long projectId,
                                                            @RequestParam Long fromPersonId,
-                                                           @RequestParam Long toPersonId) {
-        return ResponseEntity.ok(transactionService.pairBalance(projectId, fromPersonId, toPersonId));
+                                                           @RequestParam Long toPersonId,
+                                                           @RequestParam(defaultValue = "false") boolean includeSubprojects) {
+        return ResponseEntity.ok(transactionService.pairBalance(projectId, fromPersonId, toPersonId, includeSubprojects));
     }
 }
@@ -0,0 +1,39 @@
+package com.app.controller;
+
+import com.app.dto.usage.UsageEntryResponse;
+import com.app.enums.UsageEntityType;
+import com.app.service.UsageTracker;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/usage")
+public class UsageController {
+
+    private final UsageTracker usageTracker;
+
+    public UsageController(UsageTracker usageTracker) {
+        this.usageTracker = usageTracker;
+    }
+
+    // type: PERSON | ITEM | UNIT
+    @GetMapping(value = "/most-used", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<UsageEntryResponse>> mostUsed(@RequestParam UsageEntityType type,
+                                                             @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(usageTracker.mostUsed(type, checkLimit(limit)));
+    }
+
+    @GetMapping(value = "/recent", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<UsageEntryResponse>> recent(@RequestParam UsageEntityType type,
+                                                           @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(usageTracker.recentlyUsed(type, checkLimit(limit)));
+    }
+
+    private int checkLimit(int limit) {
+        if (limit <= 0 || limit > 50) throw new IllegalArgumentException("تعداد نتایج باید بین ۱ و ۵۰ باشد.");
+        return limit;
+    }
+}
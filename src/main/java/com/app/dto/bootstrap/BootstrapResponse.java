@@ -0,0 +1,23 @@
+package com.app.dto.bootstrap;
+
+import com.app.dto.item.ItemResponse;
+import com.app.dto.itemcategory.ItemCategoryTreeNodeResponse;
+import com.app.dto.project.ProjectTreeNode;
+import com.app.dto.unit.UnitResponse;
+
+import java.util.List;
+
+/**
+ * All reference data in one response. On a delta fetch (full = false) only the tables whose
+ * version changed since the client's token are filled; the others are null and the client
+ * keeps its copy. Each included table is complete (replace, don't merge).
+ * Persons are not included (too many rows); they are searched and paged on demand.
+ */
+public record BootstrapResponse(
+        String version,
+        boolean full,
+        List<UnitResponse> units,
+        List<ItemCategoryTreeNodeResponse> itemCategories,
+        List<ItemResponse> items,
+        List<ProjectTreeNode> projects
+) {}
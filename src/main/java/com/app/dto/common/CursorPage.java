@@ -0,0 +1,15 @@
+package com.app.dto.common;
+
+import java.util.List;
+
+/**
+ * One page of a keyset (seek) listing. nextCursor is opaque and null on the last page;
+ * total is only filled when the caller asked for it.
+ */
+public record CursorPage<T>(
+        List<T> content,
+        int size,
+        String nextCursor,
+        boolean hasNext,
+        Long total
+) {}
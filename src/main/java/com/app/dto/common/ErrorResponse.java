@@ -1,19 +1,25 @@
 package com.app.dto.common;
 
+import org.slf4j.MDC;
+
 import java.time.LocalDateTime;
 import java.util.List;
 
+/**
+ * traceId: the request's trace (also in the log lines), so a reported error can be found.
+ */
 public record ErrorResponse(
         String code,
         String message,
         List<String> details,
-        LocalDateTime timestamp
+        LocalDateTime timestamp,
+        String traceId
 ) {
     public static ErrorResponse of(String code, String message) {
-        return new ErrorResponse(code, message, null, LocalDateTime.now());
+        return of(code, message, null);
     }
 
     public static ErrorResponse of(String code, String message, List<String> details) {
-        return new ErrorResponse(code, message, details, LocalDateTime.now());
+        return new ErrorResponse(code, message, details, LocalDateTime.now(), MDC.get("traceId"));
     }
 }
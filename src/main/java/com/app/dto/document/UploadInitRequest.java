@@ -0,0 +1,14 @@
+package com.app.dto.document;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+public record UploadInitRequest(
+        @Size(max = 255) String fileName,
+        @Size(max = 100) String contentType,
+        @Size(max = 4000) String dsc,
+        @NotNull @Positive Long totalSize,
+        @NotBlank @Size(min = 64, max = 64) String sha256
+) {}
@@ -0,0 +1,14 @@
+package com.app.dto.document;
+
+import java.util.List;
+
+public record UploadStatusResponse(
+        String uploadId,
+        String ownerType,
+        Long ownerId,
+        long totalSize,
+        int chunkSize,
+        int chunkCount,
+        long receivedBytes,
+        List<Integer> missingChunks
+) {}
@@ -0,0 +1,10 @@
+package com.app.dto.item;
+
+public record ItemSuggestionResponse(
+        Long id,
+        String code,
+        String title,
+        Long categoryId,
+        String categoryTitle,
+        long usageCount
+) {}
@@ -0,0 +1,32 @@
+package com.app.dto.project;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * own*: rows registered directly on this project; total*: this project + all descendants.
+ */
+public class ProjectRollupNode {
+    public Long id;
+    public Long parentId;
+    public String title;
+
+    public BigDecimal ownPaid = BigDecimal.ZERO;
+    public BigDecimal ownDebt = BigDecimal.ZERO;
+    public BigDecimal ownCovered = BigDecimal.ZERO;
+    public BigDecimal ownRemaining = BigDecimal.ZERO;
+
+    public BigDecimal totalPaid = BigDecimal.ZERO;
+    public BigDecimal totalDebt = BigDecimal.ZERO;
+    public BigDecimal totalCovered = BigDecimal.ZERO;
+    public BigDecimal totalRemaining = BigDecimal.ZERO;
+
+    public List<ProjectRollupNode> children = new ArrayList<>();
+
+    public ProjectRollupNode(Long id, Long parentId, String title) {
+        this.id = id;
+        this.parentId = parentId;
+        this.title = title;
+    }
+}
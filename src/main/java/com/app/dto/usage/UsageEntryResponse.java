@@ -0,0 +1,9 @@
+package com.app.dto.usage;
+
+public record UsageEntryResponse(
+        String type,
+        Long id,
+        String code,
+        String title,
+        long useCount
+) {}
@@ -0,0 +1,23 @@
+package com.app.enums;
+
+public enum DocumentOwnerType {
+    TRANSACTION("TRX", "پرداخت"),
+    DEBT("DBT", "بدهی"),
+    ;
+
+    private String code;
+    private String title;
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    DocumentOwnerType(String code, String title) {
+        this.code = code;
+        this.title = title;
+    }
+}
@@ -0,0 +1,22 @@
+package com.app.enums;
+
+/**
+ * Reference data shipped by the bootstrap endpoint; code is the data_versions.table_name key.
+ */
+public enum ReferenceTable {
+    UNITS("units"),
+    ITEM_CATEGORIES("item_categories"),
+    ITEMS("items"),
+    PROJECTS("projects"),
+    ;
+
+    private String code;
+
+    public String getCode() {
+        return code;
+    }
+
+    ReferenceTable(String code) {
+        this.code = code;
+    }
+}
@@ -0,0 +1,24 @@
+package com.app.enums;
+
+public enum UsageEntityType {
+    PERSON("P", "شخص"),
+    ITEM("I", "کالا/خدمت"),
+    UNIT("U", "واحد"),
+    ;
+
+    private String code;
+    private String title;
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    UsageEntityType(String code, String title) {
+        this.code = code;
+        this.title = title;
+    }
+}
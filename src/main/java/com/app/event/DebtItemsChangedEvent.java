@@ -0,0 +1,8 @@
+package com.app.event;
+
+import java.util.List;
+
+/**
+ * Items that gained (added) or lost (removed) a debt line; one id per line, so a count delta of one each.
+ */
+public record DebtItemsChangedEvent(List<Long> addedItemIds, List<Long> removedItemIds) {}
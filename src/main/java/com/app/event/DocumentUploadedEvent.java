@@ -0,0 +1,9 @@
+package com.app.event;
+
+import com.app.enums.DocumentOwnerType;
+
+public record DocumentUploadedEvent(
+        DocumentOwnerType ownerType,
+        Long documentId,
+        String contentType
+) {}
@@ -0,0 +1,8 @@
+package com.app.event;
+
+import java.util.List;
+
+/**
+ * Reference data picked on a debt or transaction; feeds the usage counters (most used / recently used).
+ */
+public record EntitiesUsedEvent(List<Long> personIds, List<Long> itemIds, List<Long> unitIds) {}
@@ -0,0 +1,6 @@
+package com.app.event;
+
+/**
+ * Transactions, debts or allocations were written; derived aggregates must be recomputed.
+ */
+public record FinancialDataChangedEvent(String source) {}
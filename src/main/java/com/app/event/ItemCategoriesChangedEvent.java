@@ -0,0 +1,6 @@
+package com.app.event;
+
+/**
+ * An item category was created, renamed/moved or deleted.
+ */
+public record ItemCategoriesChangedEvent(Long categoryId) {}
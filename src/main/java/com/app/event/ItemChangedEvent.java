@@ -0,0 +1,6 @@
+package com.app.event;
+
+/**
+ * An item row was inserted/updated (deleted = false) or removed (deleted = true).
+ */
+public record ItemChangedEvent(Long itemId, boolean deleted) {}
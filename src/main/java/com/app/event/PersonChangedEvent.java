@@ -0,0 +1,6 @@
+package com.app.event;
+
+/**
+ * A person row was inserted/updated (deleted = false) or removed (deleted = true).
+ */
+public record PersonChangedEvent(Long personId, boolean deleted) {}
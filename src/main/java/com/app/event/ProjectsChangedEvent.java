@@ -0,0 +1,6 @@
+package com.app.event;
+
+/**
+ * A project was created, moved/renamed or deleted (projectId of the changed row).
+ */
+public record ProjectsChangedEvent(Long projectId) {}
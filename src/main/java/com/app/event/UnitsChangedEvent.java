@@ -0,0 +1,6 @@
+package com.app.event;
+
+/**
+ * A unit was created, updated or deleted.
+ */
+public record UnitsChangedEvent(Long unitId) {}
@@ -0,0 +1,11 @@
+package com.app.exception;
+
+/**
+ * Bad credentials or an unusable refresh token; mapped to 401.
+ */
+public class AuthFailedException extends RuntimeException {
+
+    public AuthFailedException(String message) {
+        super(message);
+    }
+}
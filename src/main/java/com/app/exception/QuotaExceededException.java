@@ -0,0 +1,8 @@
+package com.app.exception;
+
+public class QuotaExceededException extends BusinessException {
+
+    public QuotaExceededException(String message) {
+        super("QUOTA_EXCEEDED", message);
+    }
+}
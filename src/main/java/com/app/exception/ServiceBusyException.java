@@ -0,0 +1,18 @@
+package com.app.exception;
+
+/**
+ * Server is temporarily saturated (e.g. upload byte budget in use); mapped to 503 + Retry-After.
+ */
+public class ServiceBusyException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
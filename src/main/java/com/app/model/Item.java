@@ -1,5 +1,6 @@
 package com.app.model;
 
+import com.app.util.TextNormalizer;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -8,7 +9,6 @@ import lombok.*;
 @Getter
 @Setter
 @NoArgsConstructor
-@AllArgsConstructor
 public class Item {
 
     @Id
@@ -27,4 +27,27 @@ public class Item {
 
     @Column(name = "dsc", length = 4000)
     private String dsc;
+
+    @Setter(AccessLevel.NONE)
+    @Column(name = "code_norm", length = 10)
+    private String codeNorm;
+
+    @Setter(AccessLevel.NONE)
+    @Column(name = "title_norm", length = 50)
+    private String titleNorm;
+
+    public Item(Long id, ItemCategory category, String code, String title, String dsc) {
+        this.id = id;
+        this.category = category;
+        this.code = code;
+        this.title = title;
+        this.dsc = dsc;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void normalize() {
+        codeNorm = TextNormalizer.normalize(code);
+        titleNorm = TextNormalizer.normalize(title);
+    }
 }
@@ -1,5 +1,6 @@
 package com.app.model;
 
+import com.app.util.TextNormalizer;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -8,7 +9,6 @@ import lombok.*;
 @Getter
 @Setter
 @NoArgsConstructor
-@AllArgsConstructor
 public class ItemCategory {
 
     @Id
@@ -24,4 +24,21 @@ public class ItemCategory {
 
     @Column(name = "dsc", length = 4000)
     private String dsc;
+
+    @Setter(AccessLevel.NONE)
+    @Column(name = "title_norm", length = 50)
+    private String titleNorm;
+
+    public ItemCategory(Long id, String title, ItemCategory parent, String dsc) {
+        this.id = id;
+        this.title = title;
+        this.parent = parent;
+        this.dsc = dsc;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void normalize() {
+        titleNorm = TextNormalizer.normalize(title);
+    }
 }
@@ -1,5 +1,6 @@
 package com.app.model;
 
+import com.app.util.TextNormalizer;
 import jakarta.persistence.*;
 
 @Entity
@@ -38,6 +39,19 @@ public class Person {
     @Column(name = "dsc", length = 4000)
     private String dsc;
 
+    // normalized shadow columns (TextNormalizer), maintained on persist/update
+    @Column(name = "name_norm", length = 50)
+    private String nameNorm;
+
+    @Column(name = "last_name_norm", length = 50)
+    private String lastNameNorm;
+
+    @Column(name = "company_name_norm", length = 50)
+    private String companyNameNorm;
+
+    @Column(name = "tel_norm", length = 50)
+    private String telNorm;
+
     public Person() {}
 
     // getters/setters
@@ -64,4 +78,18 @@ public class Person {
 
     public String getDsc() { return dsc; }
     public void setDsc(String dsc) { this.dsc = dsc; }
+
+    public String getNameNorm() { return nameNorm; }
+    public String getLastNameNorm() { return lastNameNorm; }
+    public String getCompanyNameNorm() { return companyNameNorm; }
+    public String getTelNorm() { return telNorm; }
+
+    @PrePersist
+    @PreUpdate
+    void normalize() {
+        nameNorm = TextNormalizer.normalize(name);
+        lastNameNorm = TextNormalizer.normalize(lastName);
+        companyNameNorm = TextNormalizer.normalize(companyName);
+        telNorm = TextNormalizer.normalizePhone(tel);
+    }
 }
@@ -1,5 +1,6 @@
 package com.app.model;
 
+import com.app.util.TextNormalizer;
 import jakarta.persistence.*;
 
 @Entity
@@ -21,6 +22,9 @@ public class Project {
     @Column(name = "dsc", length = 4000)
     private String dsc;
 
+    @Column(name = "title_norm", length = 50)
+    private String titleNorm;
+
     public Project() {}
 
     public Long getId() { return id; }
@@ -33,4 +37,12 @@ public class Project {
 
     public String getDsc() { return dsc; }
     public void setDsc(String dsc) { this.dsc = dsc; }
+
+    public String getTitleNorm() { return titleNorm; }
+
+    @PrePersist
+    @PreUpdate
+    void normalize() {
+        titleNorm = TextNormalizer.normalize(title);
+    }
 }
@@ -3,6 +3,11 @@ package com.app.model;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
+/**
+ * Metadata only: the blob column (doc) is deliberately not mapped, so loading or
+ * deleting this entity never reads file content. Content is written and streamed
+ * through JDBC in DocumentService.
+ */
 @Entity
 @Table(name = "transaction_documents")
 public class TransactionDocument {
@@ -16,10 +21,6 @@ public class TransactionDocument {
     @JoinColumn(name = "transaction_id", nullable = false)
     private Transaction transaction;
 
-    @Lob
-    @Column(name = "doc", nullable = false)
-    private byte[] doc;
-
     @Column(name = "file_name", length = 255)
     private String fileName;
 
@@ -39,9 +40,6 @@ public class TransactionDocument {
     public Transaction getTransaction() { return transaction; }
     public void setTransaction(Transaction transaction) { this.transaction = transaction; }
 
-    public byte[] getDoc() { return doc; }
-    public void setDoc(byte[] doc) { this.doc = doc; }
-
     public String getFileName() { return fileName; }
     public void setFileName(String fileName) { this.fileName = fileName; }
 
@@ -2,6 +2,9 @@ package com.app.repository;
 
 import com.app.model.DebtDetail;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
@@ -9,7 +12,17 @@ public interface DebtDetailRepository extends JpaRepository<DebtDetail, Long> {
 
     List<DebtDetail> findByDebtHeader_IdOrderByIdAsc(Long debtHeaderId);
 
-    void deleteByDebtHeader_Id(Long debtHeaderId);
+    @Query("select d.item.id from DebtDetail d where d.debtHeader.id = :debtHeaderId")
+    List<Long> findItemIdsByDebtHeaderId(@Param("debtHeaderId") Long debtHeaderId);
+
+    @Query("select d.unit.id from DebtDetail d where d.debtHeader.id = :debtHeaderId")
+    List<Long> findUnitIdsByDebtHeaderId(@Param("debtHeaderId") Long debtHeaderId);
+
+    // one statement, executed right away (not load-and-remove at flush), so lines
+    // re-inserted in the same transaction don't hit IX_debts_detail
+    @Modifying(flushAutomatically = true)
+    @Query("delete from DebtDetail d where d.debtHeader.id = :debtHeaderId")
+    void deleteByDebtHeader_Id(@Param("debtHeaderId") Long debtHeaderId);
 
     boolean existsByDebtHeader_Id(Long debtHeaderId);
 }
@@ -8,9 +8,9 @@ import java.util.Optional;
 
 public interface ItemCategoryRepository extends JpaRepository<ItemCategory, Long> {
 
-    boolean existsByTitleIgnoreCase(String title);
+    boolean existsByTitleNorm(String titleNorm);
 
-    Optional<ItemCategory> findByTitleIgnoreCase(String title);
+    Optional<ItemCategory> findFirstByTitleNorm(String titleNorm);
 
     List<ItemCategory> findByParentIsNullOrderByTitleAsc();
 
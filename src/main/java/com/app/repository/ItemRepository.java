@@ -10,13 +10,14 @@ import java.util.Optional;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
 
-    boolean existsByCodeIgnoreCase(String code);
+    // duplicate checks on normalized values (TextNormalizer)
+    boolean existsByCodeNorm(String codeNorm);
 
-    boolean existsByTitleIgnoreCase(String title);
+    boolean existsByTitleNorm(String titleNorm);
 
-    Optional<Item> findByCodeIgnoreCase(String code);
+    Optional<Item> findFirstByCodeNorm(String codeNorm);
 
-    Optional<Item> findByTitleIgnoreCase(String title);
+    Optional<Item> findFirstByTitleNorm(String titleNorm);
 
     boolean existsByCategory_Id(Long categoryId);
 
@@ -25,9 +26,9 @@ public interface ItemRepository extends JpaRepository<Item, Long> {
             join fetch i.category c
             where (:categoryId is null or c.id = :categoryId)
               and (
-                   :q is null or :q = ''
-                   or lower(i.title) like lower(concat('%', :q, '%'))
-                   or lower(i.code) like lower(concat('%', :q, '%'))
+                   :q = ''
+                   or i.titleNorm like concat(:q, '%')
+                   or i.codeNorm like concat(:q, '%')
               )
             order by i.title asc
             """)
@@ -7,9 +7,9 @@ import java.util.List;
 
 public interface ProjectRepository extends JpaRepository<Project, Long> {
 
-    boolean existsByTitleIgnoreCase(String title);
+    boolean existsByTitleNorm(String titleNorm);
 
-    boolean existsByTitleIgnoreCaseAndIdNot(String title, Long id);
+    boolean existsByTitleNormAndIdNot(String titleNorm, Long id);
 
     long countByParent_Id(Long parentId);
 
@@ -1,30 +1,39 @@
 package com.app.security;
 
-import com.app.service.CustomUserDetailsService;
-import io.jsonwebtoken.ExpiredJwtException;
-import io.jsonwebtoken.MalformedJwtException;
-import io.jsonwebtoken.security.SignatureException;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 @Component
 public class JwtAuthFilter extends OncePerRequestFilter {
 
+    // tokens issued before roles were embedded
+    private static final List<String> DEFAULT_ROLES = List.of("ADMIN");
+
     @Autowired
     private JwtUtil jwtUtil;
 
     @Autowired
-    private CustomUserDetailsService userDetailsService;
+    private VerifiedTokenCache tokenCache;
+
+    @Autowired
+    private TokenRevocationList revocationList;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -40,29 +49,49 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         }
 
         String token = header.substring(7);
-        try {
-            String username = jwtUtil.getUsernameFromToken(token);
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                // Validate and set authentication (adapt to your UserDetailsService)
-                UserDetails user = userDetailsService.loadUserByUsername(username);
-                if (jwtUtil.validateToken(token)) {
-                    UsernamePasswordAuthenticationToken auth =
-                            new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
-                    auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(auth);
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            // principal comes from the token claims: one signature check per new token, no DB lookup
+            VerifiedTokenCache.Entry verified = tokenCache.get(token);
+            if (verified == null) {
+                try {
+                    Claims claims = jwtUtil.parseClaims(token);
+                    if (claims.getSubject() != null && claims.getExpiration() != null) {
+                        verified = new VerifiedTokenCache.Entry(claims.getSubject(), authorities(claims),
+                                claims.getExpiration().getTime(), claims.getId(),
+                                claims.getIssuedAt() == null ? 0 : claims.getIssuedAt().getTime());
+                        tokenCache.put(token, verified);
+                    }
+                } catch (JwtException | IllegalArgumentException e) {
+                    // Token was present but invalid/expired: do NOT throw.
+                    // For public endpoints we simply continue without authentication.
+                    SecurityContextHolder.clearContext();
                 }
             }
-            chain.doFilter(request, response);
-        } catch (ExpiredJwtException | MalformedJwtException | SignatureException e) {
-            // Token was present but invalid/expired: do NOT throw.
-            // For public endpoints we simply continue without authentication.
-            SecurityContextHolder.clearContext();
-            // If you prefer a strict 401 only when an Authorization header was sent:
-            // response.setStatus(HttpServletResponse.SC_UNAUTHORIZED); return;
-            chain.doFilter(request, response);
+
+            // in-memory check (Bloom filter + exact set), still no DB round trip
+            if (verified != null && revocationList.isRevoked(verified.jti(), verified.username(), verified.issuedAt())) {
+                verified = null;
+            }
+
+            if (verified != null) {
+                User principal = new User(verified.username(), "", verified.authorities());
+                UsernamePasswordAuthenticationToken auth =
+                        new UsernamePasswordAuthenticationToken(principal, null, verified.authorities());
+                auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(auth);
+            }
         }
+        chain.doFilter(request, response);
     }
 
+    private List<GrantedAuthority> authorities(Claims claims) {
+        Object raw = claims.get(JwtUtil.ROLES_CLAIM);
+        Collection<?> roles = raw instanceof Collection<?> c ? c : DEFAULT_ROLES;
 
-
+        List<GrantedAuthority> out = new ArrayList<>(roles.size());
+        for (Object r : roles) {
+            if (r != null) out.add(new SimpleGrantedAuthority("ROLE_" + r));
+        }
+        return out;
+    }
 }
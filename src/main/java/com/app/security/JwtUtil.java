@@ -1,46 +1,127 @@
 package com.app.security;
 
-import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
-import java.util.Date;
+import java.util.*;
 
+/**
+ * Issues and verifies HMAC-signed JWTs. Keys and the parser are built once at startup
+ * (JwtParser is immutable and thread-safe), so a verification is one HMAC and a JSON parse.
+ *
+ * Key rotation: app.jwt.keys lists every accepted key as "kid:secret" pairs; new tokens are
+ * signed with app.jwt.active-kid and carry it in the "kid" header. To rotate, add the new key,
+ * switch active-kid, and drop the old key once its tokens have expired. Tokens without a kid
+ * (issued before rotation existed) are verified with the "default" key.
+ *
+ * Access tokens are short-lived and carry a jti so a single token can be revoked
+ * (TokenRevocationList); sessions are extended with refresh tokens (AuthTokenService).
+ */
 @Component
 public class JwtUtil {
 
-    private final String jwtSecret = "centralbeautySecretKey123456789012345"; // must be 32+ chars
-    private final long jwtExpirationMs = 86400000;
+    public static final String ROLES_CLAIM = "roles";
 
-    private Key getSignKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    static final String DEFAULT_KID = "default";
+    private static final String LEGACY_SECRET = "centralbeautySecretKey123456789012345"; // must be 32+ chars
+
+    private final Map<String, Key> keys;
+    private final String activeKid;
+    private final Key activeKey;
+    private final long jwtExpirationMs;
+    private final JwtParser parser;
+
+    public JwtUtil(@Value("${app.jwt.keys:}") String keys,
+                   @Value("${app.jwt.active-kid:" + DEFAULT_KID + "}") String activeKid,
+                   @Value("${app.jwt.expiration-ms:900000}") long jwtExpirationMs) {
+        this.keys = parseKeys(keys);
+        this.activeKid = activeKid;
+        this.activeKey = this.keys.get(activeKid);
+        if (activeKey == null) {
+            throw new IllegalStateException("app.jwt.active-kid '" + activeKid + "' is not listed in app.jwt.keys");
+        }
+        this.jwtExpirationMs = jwtExpirationMs;
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        String kid = header.getKeyId() == null ? DEFAULT_KID : header.getKeyId();
+                        Key key = JwtUtil.this.keys.get(kid);
+                        if (key == null) throw new JwtException("Unknown signing key id: " + kid);
+                        return key;
+                    }
+                })
+                .build();
     }
 
     public String generateToken(String username) {
+        return generateToken(username, List.of("ADMIN"));
+    }
+
+    /**
+     * roles are embedded so requests can be authenticated from the token alone.
+     */
+    public String generateToken(String username, Collection<String> roles) {
         return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, activeKid)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(username)
+                .claim(ROLES_CLAIM, List.copyOf(roles))
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + jwtExpirationMs))
-                .signWith(getSignKey())
+                .signWith(activeKey)
                 .compact();
     }
 
+    public long getAccessTokenTtlSeconds() {
+        return jwtExpirationMs / 1000;
+    }
+
+    /**
+     * Verifies signature and expiry once and returns the claims; throws JwtException otherwise.
+     */
+    public Claims parseClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
     public String getUsernameFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return parseClaims(token).getSubject();
     }
 
     public boolean validateToken(String token) {
         try {
-            getUsernameFromToken(token);
+            parseClaims(token);
             return true;
         } catch (Exception e) {
             return false;
         }
     }
+
+    /**
+     * "kid1:secret1,kid2:secret2"; empty -> the built-in key as "default" (development only).
+     */
+    static Map<String, Key> parseKeys(String spec) {
+        Map<String, Key> out = new LinkedHashMap<>();
+        if (spec != null) {
+            for (String pair : spec.split(",")) {
+                String p = pair.trim();
+                if (p.isEmpty()) continue;
+                int sep = p.indexOf(':');
+                if (sep <= 0 || sep == p.length() - 1) {
+                    throw new IllegalStateException("app.jwt.keys entries must be 'kid:secret'");
+                }
+                out.put(p.substring(0, sep).trim(), hmacKey(p.substring(sep + 1).trim()));
+            }
+        }
+        if (out.isEmpty()) out.put(DEFAULT_KID, hmacKey(LEGACY_SECRET));
+        return Collections.unmodifiableMap(out);
+    }
+
+    private static Key hmacKey(String secret) {
+        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    }
 }
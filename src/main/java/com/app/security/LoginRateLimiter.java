@@ -0,0 +1,120 @@
+package com.app.security;
+
+import com.app.exception.TooManyRequestsException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token buckets for login attempts, one per username and one per client IP.
+ * A bucket holds up to `burst` attempts and refills at `per-minute`; an attempt must
+ * take a token from both buckets. Idle (full) buckets are dropped periodically.
+ */
+@Component
+public class LoginRateLimiter {
+
+    private final int userBurst;
+    private final double userRefillPerNano;
+    private final int ipBurst;
+    private final double ipRefillPerNano;
+    private final int maxBuckets;
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    public LoginRateLimiter(@Value("${app.security.login.user.burst:5}") int userBurst,
+                            @Value("${app.security.login.user.per-minute:5}") int userPerMinute,
+                            @Value("${app.security.login.ip.burst:20}") int ipBurst,
+                            @Value("${app.security.login.ip.per-minute:30}") int ipPerMinute,
+                            @Value("${app.security.login.max-buckets:100000}") int maxBuckets) {
+        this.userBurst = userBurst;
+        this.userRefillPerNano = userPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        this.ipBurst = ipBurst;
+        this.ipRefillPerNano = ipPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        this.maxBuckets = maxBuckets;
+    }
+
+    /**
+     * Throws TooManyRequestsException (429) when either bucket is empty.
+     */
+    public void acquire(String username, String ip) {
+        long now = System.nanoTime();
+        String userKey = "u:" + (username == null ? "" : username.trim().toLowerCase(Locale.ROOT));
+        String ipKey = "ip:" + (ip == null ? "" : ip);
+
+        if (buckets.size() > maxBuckets) evictIdle(now);
+
+        Bucket ipBucket = buckets.computeIfAbsent(ipKey, k -> new Bucket(ipBurst, ipRefillPerNano, now));
+        long ipWait = ipBucket.tryTake(now);
+        if (ipWait > 0) throw rejected(ipWait);
+
+        Bucket userBucket = buckets.computeIfAbsent(userKey, k -> new Bucket(userBurst, userRefillPerNano, now));
+        long userWait = userBucket.tryTake(now);
+        if (userWait > 0) {
+            ipBucket.giveBack(now);
+            throw rejected(userWait);
+        }
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void evictIdle() {
+        evictIdle(System.nanoTime());
+    }
+
+    private void evictIdle(long now) {
+        buckets.values().removeIf(b -> b.isFull(now));
+    }
+
+    private TooManyRequestsException rejected(long waitNanos) {
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1);
+        return new TooManyRequestsException("تعداد تلاش‌های ورود بیش از حد مجاز است. لطفاً " + seconds + " ثانیه بعد دوباره تلاش کنید.",
+                seconds);
+    }
+
+    private static final class Bucket {
+        private final int capacity;
+        private final double refillPerNano;
+        private double tokens;
+        private long last;
+
+        Bucket(int capacity, double refillPerNano, long now) {
+            this.capacity = capacity;
+            this.refillPerNano = refillPerNano;
+            this.tokens = capacity;
+            this.last = now;
+        }
+
+        /**
+         * 0 when a token was taken, otherwise nanos until one is available.
+         */
+        synchronized long tryTake(long now) {
+            refill(now);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return refillPerNano <= 0 ? TimeUnit.MINUTES.toNanos(1) : (long) Math.ceil((1 - tokens) / refillPerNano);
+        }
+
+        synchronized void giveBack(long now) {
+            refill(now);
+            tokens = Math.min(capacity, tokens + 1);
+        }
+
+        synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= capacity;
+        }
+
+        private void refill(long now) {
+            if (now > last) {
+                tokens = Math.min(capacity, tokens + (now - last) * refillPerNano);
+                last = now;
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.app.security;
+
+import com.app.exception.ServiceBusyException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs BCrypt checks on a small dedicated pool so a burst of logins queues here
+ * (and is rejected with 503 once the queue is full) instead of occupying Tomcat workers.
+ * Unknown users are checked against a dummy hash, so they take as long as a wrong password.
+ */
+@Component
+public class PasswordVerifier {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final String dummyHash;
+    private final long retryAfterSeconds;
+
+    public PasswordVerifier(PasswordEncoder passwordEncoder,
+                            @Value("${app.security.login.verify-threads:2}") int threads,
+                            @Value("${app.security.login.verify-queue:50}") int queueCapacity,
+                            @Value("${app.security.login.retry-after-seconds:2}") long retryAfterSeconds) {
+        this.passwordEncoder = passwordEncoder;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.dummyHash = passwordEncoder.encode(UUID.randomUUID().toString());
+
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "password-verify-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * storedHash null = unknown user: still hashes (against the dummy) and completes with false.
+     */
+    public CompletableFuture<Boolean> matches(String rawPassword, String storedHash) {
+        String raw = rawPassword == null ? "" : rawPassword;
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                boolean ok = passwordEncoder.matches(raw, storedHash == null ? dummyHash : storedHash);
+                return ok && storedHash != null;
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            throw new ServiceBusyException("سرور در حال پردازش درخواست‌های ورود دیگر است. لطفاً چند لحظه بعد دوباره تلاش کنید.",
+                    retryAfterSeconds);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
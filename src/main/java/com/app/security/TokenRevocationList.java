@@ -0,0 +1,236 @@
+package com.app.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Revoked access tokens, checked on every authenticated request without touching the DB.
+ *
+ * Two kinds of entries, both mirrored from token_revocations:
+ *  - a single token by jti (logout): a Bloom filter answers "definitely not revoked" for the
+ *    common case, the exact set confirms the rare positives;
+ *  - every token of a user issued before a cut-off (sessions revoked, password changed).
+ * Other nodes' revocations are picked up by polling the table for new ids. Identity values are
+ * handed out at insert but become visible at commit, so a lower id can show up after a higher one
+ * was already read: each poll re-scans the last overlap-ids ids and skips the ones already applied.
+ * Entries are dropped once every token they could match has expired anyway.
+ */
+@Component
+public class TokenRevocationList {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationList.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long entryLifetimeMillis;
+    private final int expectedJtis;
+    private final int overlapIds;
+
+    private final Map<String, Long> revokedJtis = new ConcurrentHashMap<>();       // jti -> expires at
+    private final Map<String, long[]> revokedBefore = new ConcurrentHashMap<>();   // username -> {cut-off, expires at}
+    private volatile BloomFilter bloom;
+    private final Lock bloomLock = new ReentrantLock();
+    // locks, not monitors: poll queries while holding pollLock
+    private final Lock pollLock = new ReentrantLock();
+    private long lastSeenId; // guarded by pollLock
+    private final Set<Long> seenIds = new HashSet<>(); // applied ids within the overlap window, guarded by pollLock
+
+    public TokenRevocationList(JdbcTemplate jdbcTemplate,
+                               @Value("${app.jwt.expiration-ms:900000}") long accessTokenTtlMillis,
+                               @Value("${app.security.revocation.expected-entries:10000}") int expectedJtis,
+                               @Value("${app.security.revocation.overlap-ids:1000}") int overlapIds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entryLifetimeMillis = accessTokenTtlMillis;
+        this.expectedJtis = expectedJtis;
+        this.overlapIds = overlapIds;
+        this.bloom = new BloomFilter(expectedJtis);
+    }
+
+    /**
+     * O(1): a map lookup by username and (usually) one Bloom probe.
+     * iat has whole seconds only, so the cut-off is compared per second: a token issued in the
+     * same second as the revocation (e.g. the new login right after a password change) stays valid.
+     */
+    public boolean isRevoked(String jti, String username, long issuedAtMillis) {
+        long[] cut = username == null ? null : revokedBefore.get(username);
+        if (cut != null && issuedAtMillis / 1000 < cut[0] / 1000) return true;
+        return jti != null && bloom.mightContain(jti) && revokedJtis.containsKey(jti);
+    }
+
+    public void revokeToken(String jti, long tokenExpiresAtMillis) {
+        if (jti == null) return;
+        jdbcTemplate.update("insert into token_revocations (jti, expires_at) values (?, ?)",
+                jti, Timestamp.from(Instant.ofEpochMilli(tokenExpiresAtMillis)));
+        addJti(jti, tokenExpiresAtMillis);
+    }
+
+    /**
+     * Invalidates every access token of the user issued up to now.
+     */
+    public void revokeUser(String username) {
+        long now = System.currentTimeMillis();
+        long expiresAt = now + entryLifetimeMillis;
+        jdbcTemplate.update("insert into token_revocations (username, revoked_before, expires_at) values (?, ?, ?)",
+                username, Timestamp.from(Instant.ofEpochMilli(now)), Timestamp.from(Instant.ofEpochMilli(expiresAt)));
+        addUser(username, now, expiresAt);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            poll();
+        } catch (RuntimeException e) {
+            log.warn("Loading token revocations failed, will retry: {}", e.toString());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.revocation.poll-ms:5000}")
+    public void poll() {
+        pollLock.lock();
+        try {
+            pollLocked();
+        } finally {
+            pollLock.unlock();
+        }
+    }
+
+    private void pollLocked() {
+        long[] maxId = {lastSeenId};
+        jdbcTemplate.query("""
+                select id, jti, username, revoked_before, expires_at
+                from token_revocations
+                where id > ? and expires_at > sysdatetime()
+                order by id
+                """, (RowCallbackHandler) rs -> {
+            long id = rs.getLong("id");
+            maxId[0] = Math.max(maxId[0], id);
+            if (!seenIds.add(id)) return;
+            long expiresAt = rs.getTimestamp("expires_at").getTime();
+            String jti = rs.getString("jti");
+            if (jti != null) {
+                addJti(jti, expiresAt);
+            } else {
+                Timestamp before = rs.getTimestamp("revoked_before");
+                if (before != null) addUser(rs.getString("username"), before.getTime(), expiresAt);
+            }
+        }, Math.max(0, lastSeenId - overlapIds));
+        lastSeenId = maxId[0];
+        long windowStart = lastSeenId - overlapIds;
+        seenIds.removeIf(id -> id <= windowStart);
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.revocation.purge-ms:3600000}")
+    public void purge() {
+        long now = System.currentTimeMillis();
+        bloomLock.lock();
+        try {
+            revokedJtis.values().removeIf(exp -> exp <= now);
+            revokedBefore.values().removeIf(v -> v[1] <= now);
+
+            // a Bloom filter can't delete: rebuild it from what is left
+            BloomFilter fresh = new BloomFilter(Math.max(expectedJtis, revokedJtis.size() * 2));
+            revokedJtis.keySet().forEach(fresh::add);
+            bloom = fresh;
+        } finally {
+            bloomLock.unlock();
+        }
+
+        try {
+            jdbcTemplate.update("delete from token_revocations where expires_at <= sysdatetime()");
+        } catch (RuntimeException e) {
+            log.warn("Purging expired token revocations failed: {}", e.toString());
+        }
+    }
+
+    private void addJti(String jti, long expiresAt) {
+        // exact set first: a concurrent reader that sees the Bloom bit also finds the entry;
+        // locked so purge() cannot rebuild the filter in between
+        bloomLock.lock();
+        try {
+            revokedJtis.put(jti, expiresAt);
+            bloom.add(jti);
+        } finally {
+            bloomLock.unlock();
+        }
+    }
+
+    private void addUser(String username, long before, long expiresAt) {
+        revokedBefore.merge(username, new long[]{before, expiresAt},
+                (a, b) -> new long[]{Math.max(a[0], b[0]), Math.max(a[1], b[1])});
+    }
+
+    /**
+     * ~1% false positives at the expected size (10 bits and 7 probes per entry);
+     * probes use double hashing over the two halves of a 64-bit hash of the jti
+     * (not String.hashCode(), whose collisions would share all 7 bits).
+     */
+    private static final class BloomFilter {
+        private static final int PROBES = 7;
+
+        private final AtomicLongArray bits;
+        private final int numBits;
+
+        BloomFilter(int expectedEntries) {
+            this.numBits = Math.max(1024, expectedEntries * 10);
+            this.bits = new AtomicLongArray((numBits + 63) / 64);
+        }
+
+        void add(String s) {
+            long h = hash64(s);
+            int h1 = (int) h;
+            int h2 = (int) (h >>> 32) | 1; // odd step so the probes don't collapse
+            for (int i = 0; i < PROBES; i++) {
+                int bit = Math.floorMod(h1 + i * h2, numBits);
+                int word = bit >>> 6;
+                long mask = 1L << (bit & 63);
+                long prev;
+                do {
+                    prev = bits.get(word);
+                    if ((prev & mask) != 0) break;
+                } while (!bits.compareAndSet(word, prev, prev | mask));
+            }
+        }
+
+        boolean mightContain(String s) {
+            long h = hash64(s);
+            int h1 = (int) h;
+            int h2 = (int) (h >>> 32) | 1;
+            for (int i = 0; i < PROBES; i++) {
+                int bit = Math.floorMod(h1 + i * h2, numBits);
+                if ((bits.get(bit >>> 6) & (1L << (bit & 63))) == 0) return false;
+            }
+            return true;
+        }
+
+        // FNV-1a over the chars, then the MurmurHash3 64-bit finalizer to spread the high bits
+        private static long hash64(String s) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < s.length(); i++) {
+                h ^= s.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.app.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recently verified tokens, so a request with a known token skips the HMAC check.
+ * Keyed by the SHA-256 of the token (raw tokens are not retained), bounded LRU,
+ * and an entry never outlives the token's own expiry. Revocation is checked by the
+ * caller on every request, cache hit or not.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Map<String, Entry> entries;
+
+    public VerifiedTokenCache(@Value("${app.security.token-cache.max-entries:10000}") int maxEntries,
+                              @Value("${app.security.token-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = Duration.ofSeconds(ttlSeconds).toMillis();
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > VerifiedTokenCache.this.maxEntries;
+            }
+        };
+    }
+
+    public Entry get(String token) {
+        String key = key(token);
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry e = entries.get(key);
+            if (e == null) return null;
+            if (e.expiresAt() <= now) {
+                entries.remove(key);
+                return null;
+            }
+            return e;
+        }
+    }
+
+    public void put(String token, Entry verified) {
+        if (maxEntries <= 0) return;
+        long expiresAt = Math.min(verified.expiresAt(), System.currentTimeMillis() + ttlMillis);
+        Entry e = new Entry(verified.username(), List.copyOf(verified.authorities()), expiresAt,
+                verified.jti(), verified.issuedAt());
+        String key = key(token);
+        synchronized (entries) {
+            entries.put(key, e);
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    private static String key(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * expiresAt: of the cache entry (never later than the token's); issuedAt: the token's iat in millis.
+     */
+    public record Entry(String username, List<GrantedAuthority> authorities, long expiresAt,
+                        String jti, long issuedAt) {}
+}
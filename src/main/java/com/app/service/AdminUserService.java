@@ -14,6 +14,7 @@ public class AdminUserService {
 
     private final AdminUserRepository adminUserRepository;
     private final PasswordEncoder passwordEncoder;
+    private final AuthTokenService authTokenService;
 
     public AdminUserDTO create(AdminUserDTO dto) {
         AdminUser user = new AdminUser();
@@ -24,4 +25,16 @@ public class AdminUserService {
         dto.setPassword(null); // Don't expose password
         return dto;
     }
+
+    /**
+     * Signs the user out everywhere: refresh tokens are revoked and access tokens
+     * issued so far stop working within the revocation poll interval on every node.
+     */
+    public void revokeSessions(String username) {
+        if (username == null || username.isBlank()) throw new IllegalArgumentException("نام کاربری الزامی است.");
+        if (adminUserRepository.findByUsername(username).isEmpty()) {
+            throw new IllegalArgumentException("کاربر یافت نشد. (نام کاربری: " + username + ")");
+        }
+        authTokenService.revokeAll(username);
+    }
 }
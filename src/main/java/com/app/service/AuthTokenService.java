@@ -0,0 +1,141 @@
+package com.app.service;
+
+import com.app.exception.AuthFailedException;
+import com.app.repository.AdminUserRepository;
+import com.app.security.JwtUtil;
+import com.app.security.TokenRevocationList;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Short-lived access tokens plus rotating refresh tokens.
+ *
+ * Refresh tokens are random, opaque and stored only as SHA-256 in refresh_tokens; each use
+ * revokes the presented token and issues a new one. Presenting an already-revoked refresh
+ * token means it was copied, so every session of that user is revoked.
+ * The user row is read only when a refresh token is used, never per request.
+ */
+@Service
+public class AuthTokenService {
+
+    private static final List<String> ROLES = List.of("ADMIN");
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JwtUtil jwtUtil;
+    private final TokenRevocationList revocationList;
+    private final AdminUserRepository userRepo;
+    private final Duration refreshTtl;
+
+    public AuthTokenService(JdbcTemplate jdbcTemplate,
+                            JwtUtil jwtUtil,
+                            TokenRevocationList revocationList,
+                            AdminUserRepository userRepo,
+                            @Value("${app.jwt.refresh-ttl-days:14}") long refreshTtlDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jwtUtil = jwtUtil;
+        this.revocationList = revocationList;
+        this.userRepo = userRepo;
+        this.refreshTtl = Duration.ofDays(refreshTtlDays);
+    }
+
+    @Transactional
+    public TokenPair issue(String username) {
+        String refreshToken = newRefreshToken();
+        Instant now = Instant.now();
+        jdbcTemplate.update("""
+                insert into refresh_tokens (token_hash, username, created_at, expires_at)
+                values (?, ?, ?, ?)
+                """, sha256(refreshToken), username, Timestamp.from(now), Timestamp.from(now.plus(refreshTtl)));
+
+        return new TokenPair(jwtUtil.generateToken(username, ROLES), refreshToken, jwtUtil.getAccessTokenTtlSeconds());
+    }
+
+    @Transactional(noRollbackFor = AuthFailedException.class)
+    public TokenPair refresh(String refreshToken) {
+        if (refreshToken == null || refreshToken.isBlank()) throw new AuthFailedException("توکن نوسازی الزامی است.");
+
+        String hash = sha256(refreshToken.trim());
+        List<StoredToken> rows = jdbcTemplate.query("""
+                select id, username, expires_at, revoked_at
+                from refresh_tokens with (updlock)
+                where token_hash = ?
+                """, (rs, rowNum) -> new StoredToken(
+                rs.getLong("id"),
+                rs.getString("username"),
+                rs.getTimestamp("expires_at").toInstant(),
+                rs.getTimestamp("revoked_at") != null
+        ), hash);
+
+        if (rows.isEmpty()) throw new AuthFailedException("توکن نوسازی نامعتبر است.");
+        StoredToken t = rows.get(0);
+
+        if (t.revoked()) {
+            // reuse of a rotated token: treat every session of the user as compromised
+            revokeAll(t.username());
+            throw new AuthFailedException("توکن نوسازی قبلاً استفاده شده است؛ لطفاً دوباره وارد شوید.");
+        }
+        if (!t.expiresAt().isAfter(Instant.now())) throw new AuthFailedException("توکن نوسازی منقضی شده است.");
+
+        if (userRepo.findByUsername(t.username()).isEmpty()) {
+            revokeAll(t.username());
+            throw new AuthFailedException("کاربر یافت نشد.");
+        }
+
+        jdbcTemplate.update("update refresh_tokens set revoked_at = sysdatetime() where id = ?", t.id());
+        return issue(t.username());
+    }
+
+    /**
+     * Ends this session: the refresh token and (if given) the current access token.
+     */
+    @Transactional
+    public void logout(String refreshToken, String accessJti, long accessExpiresAt) {
+        if (refreshToken != null && !refreshToken.isBlank()) {
+            jdbcTemplate.update("update refresh_tokens set revoked_at = sysdatetime() where token_hash = ? and revoked_at is null",
+                    sha256(refreshToken.trim()));
+        }
+        if (accessJti != null) revocationList.revokeToken(accessJti, accessExpiresAt);
+    }
+
+    /**
+     * Every refresh token of the user, and every access token issued so far.
+     */
+    @Transactional
+    public void revokeAll(String username) {
+        jdbcTemplate.update("update refresh_tokens set revoked_at = sysdatetime() where username = ? and revoked_at is null",
+                username);
+        revocationList.revokeUser(username);
+    }
+
+    private static String newRefreshToken() {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static String sha256(String s) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record TokenPair(String accessToken, String refreshToken, long expiresIn) {}
+
+    private record StoredToken(long id, String username, Instant expiresAt, boolean revoked) {}
+}
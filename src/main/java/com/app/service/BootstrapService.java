@@ -0,0 +1,75 @@
+package com.app.service;
+
+import com.app.dto.bootstrap.BootstrapResponse;
+import com.app.enums.ReferenceTable;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Reference data for the frontend in one round trip. The full payload is built once per
+ * version token and shared; a delta is the same payload with the unchanged tables left out.
+ *
+ * Versions are read before the data, and the tree caches are asked for a snapshot at least
+ * that new, so a payload is never older than its token. It may be newer: the client then
+ * fetches those tables once more next time.
+ */
+@Service
+public class BootstrapService {
+
+    private final DataVersionService dataVersionService;
+    private final UnitService unitService;
+    private final ItemService itemService;
+    private final ItemCategoryTreeCache itemCategoryTreeCache;
+    private final ProjectTreeCache projectTreeCache;
+
+    private final AtomicReference<BootstrapResponse> lastFull = new AtomicReference<>();
+
+    public BootstrapService(DataVersionService dataVersionService,
+                            UnitService unitService,
+                            ItemService itemService,
+                            ItemCategoryTreeCache itemCategoryTreeCache,
+                            ProjectTreeCache projectTreeCache) {
+        this.dataVersionService = dataVersionService;
+        this.unitService = unitService;
+        this.itemService = itemService;
+        this.itemCategoryTreeCache = itemCategoryTreeCache;
+        this.projectTreeCache = projectTreeCache;
+    }
+
+    /**
+     * since: the version token of the client's copy; null/unknown -> full payload.
+     */
+    public BootstrapResponse get(String since) {
+        Map<ReferenceTable, Long> versions = dataVersionService.current();
+        String token = DataVersionService.token(versions);
+
+        BootstrapResponse full = lastFull.get();
+        if (full == null || !full.version().equals(token)) {
+            full = new BootstrapResponse(token, true,
+                    unitService.getAll(),
+                    itemCategoryTreeCache.snapshot(versions.get(ReferenceTable.ITEM_CATEGORIES)).roots(),
+                    itemService.getAll(),
+                    projectTreeCache.snapshot(versions.get(ReferenceTable.PROJECTS)).roots());
+            lastFull.set(full);
+        }
+
+        Map<ReferenceTable, Long> client = DataVersionService.parseToken(since);
+        if (client == null) return full;
+
+        return new BootstrapResponse(token, false,
+                changed(client, versions, ReferenceTable.UNITS) ? full.units() : null,
+                changed(client, versions, ReferenceTable.ITEM_CATEGORIES) ? full.itemCategories() : null,
+                changed(client, versions, ReferenceTable.ITEMS) ? full.items() : null,
+                changed(client, versions, ReferenceTable.PROJECTS) ? full.projects() : null);
+    }
+
+    public String currentVersion() {
+        return DataVersionService.token(dataVersionService.current());
+    }
+
+    private boolean changed(Map<ReferenceTable, Long> client, Map<ReferenceTable, Long> current, ReferenceTable t) {
+        return !client.get(t).equals(current.get(t));
+    }
+}
@@ -0,0 +1,340 @@
+package com.app.service;
+
+import com.app.dto.document.UploadInitRequest;
+import com.app.dto.document.UploadStatusResponse;
+import com.app.enums.DocumentOwnerType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Resumable upload protocol: init -> PUT chunks at fixed offsets -> complete.
+ * Chunks are written with positional writes into a spool file, so they may arrive
+ * out of order or be re-sent after a reconnect; the whole file is never held in memory.
+ */
+@Service
+public class ChunkedUploadService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChunkedUploadService.class);
+    private static final int COPY_BUFFER_BYTES = 64 * 1024;
+
+    private final DocumentService documentService;
+
+    private final Path spoolDir;
+    private final int chunkSize;
+    private final long maxBytes;
+    private final Duration sessionTtl;
+
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    public ChunkedUploadService(DocumentService documentService,
+                                @Value("${app.documents.upload.spool-dir:${java.io.tmpdir}/randp-uploads}") String spoolDir,
+                                @Value("${app.documents.upload.chunk-size:1048576}") int chunkSize,
+                                @Value("${app.documents.upload.max-bytes:104857600}") long maxBytes,
+                                @Value("${app.documents.upload.session-ttl-minutes:1440}") long sessionTtlMinutes) {
+        this.documentService = documentService;
+        this.spoolDir = Paths.get(spoolDir);
+        this.chunkSize = chunkSize;
+        this.maxBytes = maxBytes;
+        this.sessionTtl = Duration.ofMinutes(sessionTtlMinutes);
+    }
+
+    public UploadStatusResponse init(DocumentOwnerType ownerType, Long ownerId, UploadInitRequest req) {
+        if (ownerId == null) throw new IllegalArgumentException("شناسه " + ownerType.getTitle() + " الزامی است.");
+        if (req == null) throw new IllegalArgumentException("اطلاعات بارگذاری ارسال نشده است.");
+        if (req.totalSize() == null || req.totalSize() <= 0) throw new IllegalArgumentException("فایل خالی است.");
+        if (req.totalSize() > maxBytes) {
+            throw new IllegalArgumentException("حداکثر حجم فایل " + (maxBytes / (1024 * 1024)) + " مگابایت است.");
+        }
+        String sha256 = normalizeHash(req.sha256());
+
+        // owner exists, count limit and project quota: reject before anything is spooled
+        documentService.checkUploadAllowed(ownerType, ownerId, req.totalSize());
+
+        String uploadId = UUID.randomUUID().toString();
+        Path file;
+        try {
+            Files.createDirectories(spoolDir);
+            file = spoolDir.resolve(uploadId + ".part");
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                // reserve the full length up-front so positional writes never extend the file
+                ch.write(ByteBuffer.allocate(1), req.totalSize() - 1);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("ایجاد فایل موقت بارگذاری انجام نشد.", e);
+        }
+
+        UploadSession s = new UploadSession(uploadId, ownerType, ownerId, req.totalSize(), sha256,
+                trimToNull(req.fileName()), trimToNull(req.contentType()), trimToNull(req.dsc()), file);
+        sessions.put(uploadId, s);
+        return toResponse(s);
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public UploadStatusResponse writeChunk(String uploadId, long offset, InputStream body) {
+        UploadSession s = getSession(uploadId);
+
+        if (offset < 0 || offset >= s.totalSize || offset % chunkSize != 0) {
+            throw new IllegalArgumentException("موقعیت (offset) قطعه نامعتبر است: " + offset);
+        }
+        int index = (int) (offset / chunkSize);
+        long expected = Math.min(chunkSize, s.totalSize - offset);
+
+        s.lock.readLock().lock();
+        try {
+            if (s.completed) throw new IllegalArgumentException("این بارگذاری قبلاً نهایی شده است.");
+            if (sessions.get(s.uploadId) != s) {
+                throw new IllegalArgumentException("بارگذاری مورد نظر یافت نشد یا منقضی شده است. (شناسه: " + uploadId + ")");
+            }
+
+            long written = 0;
+            try (FileChannel ch = FileChannel.open(s.file, StandardOpenOption.WRITE)) {
+                byte[] buf = new byte[COPY_BUFFER_BYTES];
+                int n;
+                while ((n = body.read(buf)) != -1) {
+                    if (written + n > expected) {
+                        throw new IllegalArgumentException("حجم قطعه بیشتر از حد مجاز است. حجم مورد انتظار: " + expected);
+                    }
+                    ByteBuffer bb = ByteBuffer.wrap(buf, 0, n);
+                    long pos = offset + written;
+                    while (bb.hasRemaining()) {
+                        pos += ch.write(bb, pos);
+                    }
+                    written += n;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("ذخیره قطعه انجام نشد.", e);
+            }
+
+            if (written != expected) {
+                throw new IllegalArgumentException("قطعه ناقص دریافت شد. حجم دریافتی: " + written + " از " + expected);
+            }
+
+            synchronized (s) {
+                s.received.set(index);
+                s.lastActivity = Instant.now();
+            }
+        } finally {
+            s.lock.readLock().unlock();
+        }
+        return toResponse(s);
+    }
+
+    public UploadStatusResponse status(String uploadId) {
+        return toResponse(getSession(uploadId));
+    }
+
+    /**
+     * Verifies that all chunks arrived and the SHA-256 of the spooled file matches the
+     * hash announced on init, then streams the file into the document table.
+     */
+    public Long complete(String uploadId) {
+        UploadSession s = getSession(uploadId);
+
+        s.lock.writeLock().lock();
+        try {
+            if (s.completed) throw new IllegalArgumentException("این بارگذاری قبلاً نهایی شده است.");
+            if (sessions.get(s.uploadId) != s) {
+                throw new IllegalArgumentException("بارگذاری مورد نظر یافت نشد یا منقضی شده است. (شناسه: " + uploadId + ")");
+            }
+
+            int missing;
+            synchronized (s) {
+                missing = s.chunkCount() - s.received.cardinality();
+            }
+            if (missing > 0) {
+                throw new IllegalArgumentException("بارگذاری کامل نشده است؛ تعداد قطعات باقی‌مانده: " + missing);
+            }
+
+            String actual = sha256Hex(s.file);
+            if (!actual.equals(s.sha256)) {
+                discard(s);
+                throw new IllegalArgumentException("کد هش فایل با مقدار اعلام‌شده مطابقت ندارد؛ لطفاً فایل را دوباره بارگذاری کنید.");
+            }
+
+            Long docId;
+            try (InputStream in = Files.newInputStream(s.file)) {
+                docId = s.ownerType == DocumentOwnerType.TRANSACTION
+                        ? documentService.uploadTransactionDoc(s.ownerId, in, s.totalSize, s.fileName, s.contentType, s.dsc)
+                        : documentService.uploadDebtDoc(s.ownerId, in, s.totalSize, s.fileName, s.contentType, s.dsc);
+            } catch (IOException e) {
+                throw new UncheckedIOException("خواندن فایل موقت بارگذاری انجام نشد.", e);
+            }
+
+            s.completed = true;
+            discard(s);
+            return docId;
+        } finally {
+            s.lock.writeLock().unlock();
+        }
+    }
+
+    public void abort(String uploadId) {
+        UploadSession s = getSession(uploadId);
+        s.lock.writeLock().lock();
+        try {
+            discard(s);
+        } finally {
+            s.lock.writeLock().unlock();
+        }
+    }
+
+    // -------- helpers --------
+
+    private UploadSession getSession(String uploadId) {
+        if (uploadId == null || uploadId.isBlank()) throw new IllegalArgumentException("شناسه بارگذاری الزامی است.");
+        UploadSession s = sessions.get(uploadId);
+        if (s == null) throw new IllegalArgumentException("بارگذاری مورد نظر یافت نشد یا منقضی شده است. (شناسه: " + uploadId + ")");
+        return s;
+    }
+
+    /**
+     * Drops sessions idle for longer than the TTL, and part files no session owns
+     * (left behind by a restart) once they are that old.
+     */
+    @Scheduled(fixedDelayString = "${app.documents.upload.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        Instant cutoff = Instant.now().minus(sessionTtl);
+        for (UploadSession s : sessions.values()) {
+            if (s.lastActivity.isBefore(cutoff) && s.lock.writeLock().tryLock()) {
+                try {
+                    discard(s);
+                } finally {
+                    s.lock.writeLock().unlock();
+                }
+            }
+        }
+
+        if (!Files.isDirectory(spoolDir)) return;
+        try (DirectoryStream<Path> parts = Files.newDirectoryStream(spoolDir, "*.part")) {
+            for (Path part : parts) {
+                String name = part.getFileName().toString();
+                if (sessions.containsKey(name.substring(0, name.length() - ".part".length()))) continue;
+                try {
+                    if (Files.getLastModifiedTime(part).toInstant().isBefore(cutoff)) Files.deleteIfExists(part);
+                } catch (IOException e) {
+                    log.debug("Could not remove orphaned upload part {}: {}", part, e.toString());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Upload spool directory scan failed: {}", e.toString());
+        }
+    }
+
+    private void discard(UploadSession s) {
+        sessions.remove(s.uploadId);
+        try {
+            Files.deleteIfExists(s.file);
+        } catch (IOException ignored) {
+            // the spool directory is temporary; a leftover part file is harmless
+        }
+    }
+
+    private String sha256Hex(Path file) {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer bb = ByteBuffer.allocate(COPY_BUFFER_BYTES);
+            while (ch.read(bb) != -1) {
+                bb.flip();
+                md.update(bb);
+                bb.clear();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("خواندن فایل موقت بارگذاری انجام نشد.", e);
+        }
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    private String normalizeHash(String sha256) {
+        String h = sha256 == null ? "" : sha256.trim().toLowerCase(Locale.ROOT);
+        if (!h.matches("[0-9a-f]{64}")) {
+            throw new IllegalArgumentException("کد هش SHA-256 نامعتبر است.");
+        }
+        return h;
+    }
+
+    private UploadStatusResponse toResponse(UploadSession s) {
+        List<Integer> missing = new ArrayList<>();
+        long receivedBytes = 0;
+        synchronized (s) {
+            for (int i = 0; i < s.chunkCount(); i++) {
+                if (s.received.get(i)) {
+                    receivedBytes += Math.min(chunkSize, s.totalSize - (long) i * chunkSize);
+                } else {
+                    missing.add(i);
+                }
+            }
+        }
+        return new UploadStatusResponse(s.uploadId, s.ownerType.name(), s.ownerId, s.totalSize,
+                chunkSize, s.chunkCount(), receivedBytes, missing);
+    }
+
+    private String trimToNull(String s) {
+        if (s == null) return null;
+        String t = s.replace("\n", " ").replace("\r", " ").trim();
+        return t.isEmpty() ? null : t;
+    }
+
+    private final class UploadSession {
+        final String uploadId;
+        final DocumentOwnerType ownerType;
+        final Long ownerId;
+        final long totalSize;
+        final String sha256;
+        final String fileName;
+        final String contentType;
+        final String dsc;
+        final Path file;
+
+        final BitSet received = new BitSet();
+        final ReadWriteLock lock = new ReentrantReadWriteLock();
+        volatile Instant lastActivity = Instant.now();
+        volatile boolean completed;
+
+        UploadSession(String uploadId, DocumentOwnerType ownerType, Long ownerId, long totalSize, String sha256,
+                      String fileName, String contentType, String dsc, Path file) {
+            this.uploadId = uploadId;
+            this.ownerType = ownerType;
+            this.ownerId = ownerId;
+            this.totalSize = totalSize;
+            this.sha256 = sha256;
+            this.fileName = fileName;
+            this.contentType = contentType;
+            this.dsc = dsc;
+            this.file = file;
+        }
+
+        int chunkCount() {
+            return (int) ((totalSize + chunkSize - 1) / chunkSize);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.app.service;
+
+import com.app.enums.ReferenceTable;
+import com.app.event.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Per-table change counters (data_versions) behind the bootstrap version token.
+ * Counters are bumped BEFORE_COMMIT, i.e. inside the writing transaction, so a committed
+ * change is never visible without its new version (and a rollback undoes the bump).
+ * That needs the publishing service method to be @Transactional: without a transaction the
+ * listener only runs as a fallback, after the write has already committed.
+ */
+@Service
+public class DataVersionService {
+
+    private static final String TOKEN_PREFIX = "v2";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DataVersionService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onUnitsChanged(UnitsChangedEvent event) {
+        bump(ReferenceTable.UNITS);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onItemCategoriesChanged(ItemCategoriesChangedEvent event) {
+        bump(ReferenceTable.ITEM_CATEGORIES);
+        bump(ReferenceTable.ITEMS); // items carry the category title
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onItemChanged(ItemChangedEvent event) {
+        bump(ReferenceTable.ITEMS);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onProjectsChanged(ProjectsChangedEvent event) {
+        bump(ReferenceTable.PROJECTS);
+    }
+
+    public Map<ReferenceTable, Long> current() {
+        Map<ReferenceTable, Long> versions = new EnumMap<>(ReferenceTable.class);
+        for (ReferenceTable t : ReferenceTable.values()) versions.put(t, 0L);
+
+        jdbcTemplate.query("select table_name, version from data_versions", (RowCallbackHandler) rs -> {
+            for (ReferenceTable t : ReferenceTable.values()) {
+                if (t.getCode().equals(rs.getString("table_name"))) versions.put(t, rs.getLong("version"));
+            }
+        });
+        return versions;
+    }
+
+    /**
+     * Version of one table; read it before the data it describes, so the data is at least that new.
+     */
+    public long current(ReferenceTable table) {
+        Long v = jdbcTemplate.query("select version from data_versions where table_name = ?",
+                rs -> rs.next() ? rs.getLong("version") : 0L, table.getCode());
+        return v == null ? 0L : v;
+    }
+
+    /**
+     * "v2.&lt;units&gt;.&lt;item_categories&gt;.&lt;items&gt;.&lt;projects&gt;"
+     */
+    public static String token(Map<ReferenceTable, Long> versions) {
+        StringJoiner j = new StringJoiner(".");
+        j.add(TOKEN_PREFIX);
+        for (ReferenceTable t : ReferenceTable.values()) j.add(String.valueOf(versions.getOrDefault(t, 0L)));
+        return j.toString();
+    }
+
+    /**
+     * null when the token is missing or not in the current format (the client then gets everything).
+     */
+    public static Map<ReferenceTable, Long> parseToken(String token) {
+        if (token == null || token.isBlank()) return null;
+        String[] parts = token.trim().split("\\.");
+        ReferenceTable[] tables = ReferenceTable.values();
+        if (parts.length != tables.length + 1 || !TOKEN_PREFIX.equals(parts[0])) return null;
+
+        Map<ReferenceTable, Long> versions = new EnumMap<>(ReferenceTable.class);
+        try {
+            for (int i = 0; i < tables.length; i++) versions.put(tables[i], Long.parseLong(parts[i + 1]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return versions;
+    }
+
+    private void bump(ReferenceTable table) {
+        jdbcTemplate.update("update data_versions set version = version + 1 where table_name = ?", table.getCode());
+    }
+}
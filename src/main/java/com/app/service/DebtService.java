@@ -1,9 +1,16 @@
 package com.app.service;
 
 import com.app.dto.debt.*;
+import com.app.enums.DocumentOwnerType;
+import com.app.event.DebtItemsChangedEvent;
+import com.app.event.EntitiesUsedEvent;
+import com.app.event.FinancialDataChangedEvent;
 import com.app.model.*;
 import com.app.repository.*;
+import com.app.util.QueryMetrics;
+import io.micrometer.observation.annotation.Observed;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -12,6 +19,7 @@ import java.math.BigDecimal;
 import java.util.*;
 
 @Service
+@Observed(name = "app.service")
 public class DebtService {
 
     private final DebtHeaderRepository debtHeaderRepository;
@@ -24,6 +32,9 @@ public class DebtService {
 
     private final TransactionTrackRepository trackRepository;
     private final JdbcTemplate jdbcTemplate;
+    private final DocumentService documentService;
+    private final QueryMetrics queryMetrics;
+    private final ApplicationEventPublisher eventPublisher;
 
     public DebtService(DebtHeaderRepository debtHeaderRepository,
                        DebtDetailRepository debtDetailRepository,
@@ -32,7 +43,10 @@ public class DebtService {
                        ItemRepository itemRepository,
                        UnitRepository unitRepository,
                        TransactionTrackRepository trackRepository,
-                       JdbcTemplate jdbcTemplate) {
+                       JdbcTemplate jdbcTemplate,
+                       DocumentService documentService,
+                       QueryMetrics queryMetrics,
+                       ApplicationEventPublisher eventPublisher) {
 
         this.debtHeaderRepository = debtHeaderRepository;
         this.debtDetailRepository = debtDetailRepository;
@@ -42,6 +56,9 @@ public class DebtService {
         this.unitRepository = unitRepository;
         this.trackRepository = trackRepository;
         this.jdbcTemplate = jdbcTemplate;
+        this.documentService = documentService;
+        this.queryMetrics = queryMetrics;
+        this.eventPublisher = eventPublisher;
     }
 
     // ---------------- CRUD ----------------
@@ -58,6 +75,9 @@ public class DebtService {
         try {
             DebtHeader savedHeader = debtHeaderRepository.save(header);
             saveLines(savedHeader, req.lines());
+            eventPublisher.publishEvent(new FinancialDataChangedEvent("debts"));
+            publishItemDelta(List.of(), itemIds(req.lines()));
+            publishUsage(req.personId(), req.lines());
             return toHeaderResponse(savedHeader);
         } catch (DataIntegrityViolationException e) {
             throw new IllegalArgumentException("ثبت بدهی انجام نشد. احتمالاً داده تکراری است یا محدودیت دیتابیس وجود دارد.");
@@ -94,15 +114,27 @@ public class DebtService {
             );
         }
 
+        Long oldProjectId = header.getProject().getId();
+        Long oldPersonId = header.getPerson().getId();
         applyHeader(header, req.projectId(), req.personId(), req.dateDue(), req.dateRegistered(), req.dsc());
 
         try {
             DebtHeader saved = debtHeaderRepository.save(header);
+            documentService.moveProjectUsage(DocumentOwnerType.DEBT, id, oldProjectId, req.projectId());
 
             // جایگزینی کامل ردیف‌ها
+            List<Long> oldItemIds = debtDetailRepository.findItemIdsByDebtHeaderId(id);
+            List<Long> oldUnitIds = debtDetailRepository.findUnitIdsByDebtHeaderId(id);
             debtDetailRepository.deleteByDebtHeader_Id(id);
             saveLines(saved, req.lines());
 
+            eventPublisher.publishEvent(new FinancialDataChangedEvent("debts"));
+            publishItemDelta(oldItemIds, itemIds(req.lines()));
+            // only what this edit newly picked counts as a use; re-saving must not inflate the counters
+            eventPublisher.publishEvent(new EntitiesUsedEvent(
+                    newIds(List.of(oldPersonId), List.of(req.personId())),
+                    newIds(oldItemIds, itemIds(req.lines())),
+                    newIds(oldUnitIds, req.lines().stream().map(DebtLineRequest::unitId).toList())));
             return toHeaderResponse(saved);
         } catch (DataIntegrityViolationException e) {
             throw new IllegalArgumentException("ویرایش بدهی انجام نشد. احتمالاً داده تکراری است یا محدودیت دیتابیس وجود دارد.");
@@ -128,10 +160,40 @@ public class DebtService {
         }
 
         // حذف ردیف‌ها و سپس هدر
+        List<Long> oldItemIds = debtDetailRepository.findItemIdsByDebtHeaderId(id);
         debtDetailRepository.deleteByDebtHeader_Id(id);
+        eventPublisher.publishEvent(new FinancialDataChangedEvent("debts"));
+        publishItemDelta(oldItemIds, List.of());
         debtHeaderRepository.delete(h);
     }
 
+    // line count per item changes only where the item set differs (an item appears once per debt)
+    private void publishItemDelta(List<Long> oldItemIds, List<Long> newItemIds) {
+        Set<Long> before = new HashSet<>(oldItemIds);
+        Set<Long> after = new HashSet<>(newItemIds);
+        List<Long> added = after.stream().filter(i -> !before.contains(i)).toList();
+        List<Long> removed = before.stream().filter(i -> !after.contains(i)).toList();
+        if (!added.isEmpty() || !removed.isEmpty()) {
+            eventPublisher.publishEvent(new DebtItemsChangedEvent(added, removed));
+        }
+    }
+
+    private static List<Long> newIds(List<Long> before, List<Long> after) {
+        Set<Long> old = new HashSet<>(before);
+        return after.stream().filter(Objects::nonNull).filter(i -> !old.contains(i)).distinct().toList();
+    }
+
+    private static List<Long> itemIds(List<DebtLineRequest> lines) {
+        return lines.stream().map(DebtLineRequest::itemId).filter(Objects::nonNull).toList();
+    }
+
+    private void publishUsage(Long personId, List<DebtLineRequest> lines) {
+        eventPublisher.publishEvent(new EntitiesUsedEvent(
+                personId == null ? List.of() : List.of(personId),
+                lines.stream().map(DebtLineRequest::itemId).toList(),
+                lines.stream().map(DebtLineRequest::unitId).toList()));
+    }
+
     // ---------------- VIEW ----------------
 
     @Transactional(readOnly = true)
@@ -166,7 +228,7 @@ public class DebtService {
 
     // ---------------- "Open debts" listing ----------------
     @Transactional(readOnly = true)
-    public List<Map<String, Object>> openDebts(Long projectId, Long personId) {
+    public List<Map<String, Object>> openDebts(Long projectId, Long personId, boolean includeSubprojects) {
         if (projectId == null) throw new IllegalArgumentException("شناسه پروژه الزامی است.");
 
         String sql = """
@@ -186,14 +248,14 @@ public class DebtService {
                 from transaction_tracks
                 group by debt_header_id
             ) tt on tt.debt_header_id = dh.id
-            where dh.project_id = ?
+            where %s
               and (? is null or dh.person_id = ?)
             group by dh.id, dh.project_id, dh.person_id, dh.date_due, dh.date_registered, tt.covered
             having (coalesce(sum(cast(dd.qnt as decimal(18,3)) * cast(dd.unit_price as decimal(18,0))),0) - coalesce(tt.covered,0)) > 0
             order by dh.date_registered desc, dh.id desc
-            """;
+            """.formatted(ProjectScope.predicate("dh.project_id", includeSubprojects));
 
-        return jdbcTemplate.queryForList(sql, projectId, personId, personId);
+        return queryMetrics.list("debts.open", sql, q -> jdbcTemplate.queryForList(q, projectId, personId, personId));
     }
 
     // ---------------- ALL DEBTS ----------------
@@ -245,7 +307,7 @@ public class DebtService {
         order by dh.date_registered desc, dh.id desc
         """;
 
-        return jdbcTemplate.queryForList(sql);
+        return queryMetrics.list("debts.all", sql, jdbcTemplate::queryForList);
     }
 
     // ---------------- helpers ----------------
@@ -295,22 +357,27 @@ public class DebtService {
                 throw new IllegalArgumentException("قیمت واحد نمی‌تواند منفی باشد.");
         }
 
+        // one lookup per table instead of two per line
+        Set<Long> existingItems = new HashSet<>();
+        itemRepository.findAllById(itemIds).forEach(i -> existingItems.add(i.getId()));
+        Set<Long> existingUnits = new HashSet<>();
+        unitRepository.findAllById(lines.stream().map(DebtLineRequest::unitId).distinct().toList())
+                .forEach(u -> existingUnits.add(u.getId()));
+
+        List<Object[]> rows = new ArrayList<>(lines.size());
         for (DebtLineRequest l : lines) {
-            Item item = itemRepository.findById(l.itemId())
-                    .orElseThrow(() -> new IllegalArgumentException("کالا/خدمت مورد نظر یافت نشد. (شناسه: " + l.itemId() + ")"));
-
-            Unit unit = unitRepository.findById(l.unitId())
-                    .orElseThrow(() -> new IllegalArgumentException("واحد مورد نظر یافت نشد. (شناسه: " + l.unitId() + ")"));
-
-            DebtDetail d = new DebtDetail();
-            d.setDebtHeader(header);
-            d.setItem(item);
-            d.setUnit(unit);
-            d.setQnt(l.qnt());
-            d.setUnitPrice(l.unitPrice());
-            d.setDsc(trimToNull(l.dsc()));
-            debtDetailRepository.save(d);
+            if (!existingItems.contains(l.itemId()))
+                throw new IllegalArgumentException("کالا/خدمت مورد نظر یافت نشد. (شناسه: " + l.itemId() + ")");
+            if (!existingUnits.contains(l.unitId()))
+                throw new IllegalArgumentException("واحد مورد نظر یافت نشد. (شناسه: " + l.unitId() + ")");
+            rows.add(new Object[]{header.getId(), l.itemId(), l.qnt(), l.unitId(), l.unitPrice(), trimToNull(l.dsc())});
         }
+
+        // identity ids rule out Hibernate insert batching: one JDBC batch for all lines
+        queryMetrics.batch("debts.insert-lines", """
+                insert into debts_detail (debt_header_id, item_id, qnt, unit_id, unit_price, dsc)
+                values (?, ?, ?, ?, ?, ?)
+                """, q -> jdbcTemplate.batchUpdate(q, rows));
     }
 
     private BigDecimal calcTotalFromLines(List<DebtLineRequest> lines) {
@@ -349,7 +416,7 @@ public class DebtService {
             order by dd.id asc
             """;
 
-        return jdbcTemplate.query(sql, (rs, rowNum) -> new DebtLineResponse(
+        return queryMetrics.list("debts.lines", sql, q -> jdbcTemplate.query(q, (rs, rowNum) -> new DebtLineResponse(
                 rs.getLong("id"),
                 rs.getLong("item_id"),
                 rs.getString("item_title"),
@@ -359,7 +426,7 @@ public class DebtService {
                 rs.getBigDecimal("unit_price"),
                 rs.getBigDecimal("line_total"),
                 rs.getString("dsc")
-        ), debtId);
+        ), debtId));
     }
 
     private List<DebtAllocationView> loadAllocationsView(Long debtId) {
@@ -378,7 +445,7 @@ public class DebtService {
             order by tt.id desc
             """;
 
-        return jdbcTemplate.query(sql, (rs, rowNum) -> new DebtAllocationView(
+        return queryMetrics.list("debts.allocations", sql, q -> jdbcTemplate.query(q, (rs, rowNum) -> new DebtAllocationView(
                 rs.getLong("allocation_id"),
                 rs.getLong("transaction_id"),
                 rs.getString("transaction_code"),
@@ -386,14 +453,13 @@ public class DebtService {
                 rs.getBigDecimal("transaction_amount_paid"),
                 rs.getBigDecimal("covered_amount"),
                 rs.getString("dsc")
-        ), debtId);
+        ), debtId));
     }
 
     private boolean hasDebtDocuments(Long debtId) {
-        Integer cnt = jdbcTemplate.queryForObject(
+        Integer cnt = queryMetrics.one("debts.document-count",
                 "select count(1) from debts_documents where debt_header_id = ?",
-                Integer.class,
-                debtId
+                q -> jdbcTemplate.queryForObject(q, Integer.class, debtId)
         );
         return cnt != null && cnt > 0;
     }
@@ -0,0 +1,307 @@
+package com.app.service;
+
+import com.app.enums.DocumentOwnerType;
+import com.app.event.DocumentUploadedEvent;
+import jakarta.annotation.PreDestroy;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders small JPEG thumbnails for image attachments and first-page previews for PDFs.
+ * Work runs after the upload commits, on a bounded pool; when the queue is full the job
+ * is dropped and rendered lazily on the first preview request instead. Documents that
+ * can't be rendered are recorded in document_preview_failures and not tried again.
+ */
+@Service
+public class DocumentPreviewService {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentPreviewService.class);
+
+    private static final String PREVIEW_CONTENT_TYPE = "image/jpeg";
+    private static final Set<String> IMAGE_TYPES = Set.of("image/jpeg", "image/jpg", "image/png", "image/gif", "image/bmp");
+    private static final String PDF_TYPE = "application/pdf";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxDimension;
+    private final long maxPdfBytes;
+    private final ThreadPoolExecutor executor;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    public DocumentPreviewService(JdbcTemplate jdbcTemplate,
+                                  @Value("${app.documents.preview.max-dimension:320}") int maxDimension,
+                                  @Value("${app.documents.preview.max-pdf-bytes:20971520}") long maxPdfBytes,
+                                  @Value("${app.documents.preview.workers:2}") int workers,
+                                  @Value("${app.documents.preview.queue-capacity:200}") int queueCapacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxDimension = maxDimension;
+        this.maxPdfBytes = maxPdfBytes;
+
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "doc-preview-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentUploaded(DocumentUploadedEvent event) {
+        if (isPreviewable(event.contentType())) {
+            enqueue(event.ownerType(), event.documentId());
+        }
+    }
+
+    public Preview getPreview(DocumentOwnerType ownerType, Long documentId) {
+        if (documentId == null) throw new IllegalArgumentException("شناسه سند الزامی است.");
+
+        List<Preview> rows = jdbcTemplate.query("""
+                select content_type, preview
+                from document_previews
+                where owner_type = ? and document_id = ?
+                """, (rs, rowNum) -> new Preview(rs.getString("content_type"), rs.getBytes("preview")),
+                ownerType.getCode(), documentId);
+
+        if (!rows.isEmpty()) return rows.get(0);
+
+        // not rendered yet (queue was full, or uploaded before previews existed), or failed before
+        PreviewState state = previewState(ownerType, documentId);
+        if (!state.failed() && isPreviewable(state.contentType())) enqueue(ownerType, documentId);
+        return null;
+    }
+
+    public void deletePreview(DocumentOwnerType ownerType, Long documentId) {
+        jdbcTemplate.update("delete from document_previews where owner_type = ? and document_id = ?",
+                ownerType.getCode(), documentId);
+        jdbcTemplate.update("delete from document_preview_failures where owner_type = ? and document_id = ?",
+                ownerType.getCode(), documentId);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // -------- rendering --------
+
+    private void enqueue(DocumentOwnerType ownerType, Long documentId) {
+        String key = ownerType.getCode() + ":" + documentId;
+        if (!inFlight.add(key)) return;
+        try {
+            executor.execute(() -> {
+                try {
+                    render(ownerType, documentId);
+                } catch (DataAccessException e) {
+                    // DB trouble is not the document's fault: tried again on the next request
+                    log.warn("Preview rendering failed for {} document {}: {}", ownerType, documentId, e.toString());
+                } catch (Exception e) {
+                    log.warn("Preview rendering failed for {} document {}: {}", ownerType, documentId, e.toString());
+                    markFailed(ownerType, documentId, e.toString());
+                } finally {
+                    inFlight.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // queue full: the preview is rendered lazily on the first request instead
+            inFlight.remove(key);
+            log.warn("Preview queue is full, skipping {} document {}", ownerType, documentId);
+        }
+    }
+
+    private void render(DocumentOwnerType ownerType, Long documentId) {
+        String table = ownerType == DocumentOwnerType.TRANSACTION ? "transaction_documents" : "debts_documents";
+
+        BufferedImage thumb = jdbcTemplate.query(
+                "select content_type, datalength(doc) as size_bytes, doc from " + table + " where id = ?",
+                rs -> {
+                    if (!rs.next()) return null;
+                    String contentType = normalizeType(rs.getString("content_type"));
+                    boolean pdf = PDF_TYPE.equals(contentType);
+                    if (pdf && rs.getLong("size_bytes") > maxPdfBytes) {
+                        throw new IllegalStateException("PDF larger than " + maxPdfBytes + " bytes");
+                    }
+                    try (InputStream in = rs.getBinaryStream("doc")) {
+                        if (in == null) return null;
+                        return pdf ? renderPdf(in) : renderImage(in);
+                    } catch (IOException e) {
+                        throw new java.io.UncheckedIOException(e);
+                    }
+                },
+                documentId);
+
+        if (thumb == null) {
+            markFailed(ownerType, documentId, "unreadable or empty document");
+            return;
+        }
+
+        byte[] jpeg = toJpeg(thumb);
+
+        jdbcTemplate.update("delete from document_previews where owner_type = ? and document_id = ?",
+                ownerType.getCode(), documentId);
+        jdbcTemplate.update("""
+                insert into document_previews (owner_type, document_id, content_type, width, height, preview)
+                select ?, ?, ?, ?, ?, ?
+                where exists (select 1 from %s where id = ?)
+                """.formatted(table),
+                ownerType.getCode(), documentId, PREVIEW_CONTENT_TYPE,
+                thumb.getWidth(), thumb.getHeight(), jpeg, documentId);
+    }
+
+    private BufferedImage renderImage(InputStream in) throws IOException {
+        try (ImageInputStream iis = ImageIO.createImageInputStream(in)) {
+            if (iis == null) return null;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) return null;
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                int w = reader.getWidth(0);
+                int h = reader.getHeight(0);
+
+                // subsample while decoding so a 40MP scan never lands fully in heap
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.max(w, h) / (maxDimension * 2));
+                param.setSourceSubsampling(step, step, 0, 0);
+
+                return scale(reader.read(0, param));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // spooled to disk: PDFBox needs random access, and an in-memory buffer would hold the whole file
+    private BufferedImage renderPdf(InputStream in) throws IOException {
+        Path spool = Files.createTempFile("randp-preview-", ".pdf");
+        try {
+            Files.copy(in, spool, StandardCopyOption.REPLACE_EXISTING);
+            try (PDDocument pdf = Loader.loadPDF(new RandomAccessReadBufferedFile(spool.toFile()))) {
+                if (pdf.getNumberOfPages() == 0) return null;
+                PDRectangle box = pdf.getPage(0).getCropBox();
+                float longest = Math.max(box.getWidth(), box.getHeight());
+                float scale = longest <= 0 ? 1f : (maxDimension * 2f) / longest;
+                return scale(new PDFRenderer(pdf).renderImage(0, scale, ImageType.RGB));
+            }
+        } finally {
+            Files.deleteIfExists(spool);
+        }
+    }
+
+    private BufferedImage scale(BufferedImage src) {
+        if (src == null) return null;
+        double ratio = Math.min(1.0, (double) maxDimension / Math.max(src.getWidth(), src.getHeight()));
+        int w = Math.max(1, (int) Math.round(src.getWidth() * ratio));
+        int h = Math.max(1, (int) Math.round(src.getHeight() * ratio));
+
+        BufferedImage out = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = out.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE); // flatten transparency (png/gif) onto white
+            g.fillRect(0, 0, w, h);
+            g.drawImage(src, 0, 0, w, h, null);
+        } finally {
+            g.dispose();
+        }
+        return out;
+    }
+
+    private byte[] toJpeg(BufferedImage img) {
+        try {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream(16 * 1024);
+            ImageIO.write(img, "jpg", bos);
+            return bos.toByteArray();
+        } catch (IOException e) {
+            throw new java.io.UncheckedIOException(e);
+        }
+    }
+
+    private void markFailed(DocumentOwnerType ownerType, Long documentId, String reason) {
+        String table = ownerType == DocumentOwnerType.TRANSACTION ? "transaction_documents" : "debts_documents";
+        try {
+            jdbcTemplate.update("""
+                    insert into document_preview_failures (owner_type, document_id, reason)
+                    select ?, ?, ?
+                    where exists (select 1 from %s where id = ?)
+                      and not exists (select 1 from document_preview_failures where owner_type = ? and document_id = ?)
+                    """.formatted(table),
+                    ownerType.getCode(), documentId, truncate(reason, 400), documentId,
+                    ownerType.getCode(), documentId);
+        } catch (RuntimeException e) {
+            log.debug("Could not record preview failure for {} document {}: {}", ownerType, documentId, e.toString());
+        }
+    }
+
+    private PreviewState previewState(DocumentOwnerType ownerType, Long documentId) {
+        String table = ownerType == DocumentOwnerType.TRANSACTION ? "transaction_documents" : "debts_documents";
+        List<PreviewState> rows = jdbcTemplate.query("""
+                select d.content_type,
+                       case when f.document_id is null then 0 else 1 end as failed
+                from %s d
+                left join document_preview_failures f on f.owner_type = ? and f.document_id = d.id
+                where d.id = ?
+                """.formatted(table),
+                (rs, rowNum) -> new PreviewState(rs.getString("content_type"), rs.getInt("failed") == 1),
+                ownerType.getCode(), documentId);
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("سند یافت نشد. (شناسه: " + documentId + ")");
+        }
+        return rows.get(0);
+    }
+
+    private static String truncate(String s, int max) {
+        return s == null || s.length() <= max ? s : s.substring(0, max);
+    }
+
+    private boolean isPreviewable(String contentType) {
+        String t = normalizeType(contentType);
+        return t != null && (IMAGE_TYPES.contains(t) || PDF_TYPE.equals(t));
+    }
+
+    private String normalizeType(String contentType) {
+        if (contentType == null) return null;
+        int semi = contentType.indexOf(';');
+        String t = (semi >= 0 ? contentType.substring(0, semi) : contentType).trim().toLowerCase(Locale.ROOT);
+        return t.isEmpty() ? null : t;
+    }
+
+    public record Preview(String contentType, byte[] bytes) {}
+
+    private record PreviewState(String contentType, boolean failed) {}
+}
@@ -1,62 +1,119 @@
 package com.app.service;
 
 import com.app.dto.document.DocumentMetaResponse;
+import com.app.enums.DocumentOwnerType;
+import com.app.event.DocumentUploadedEvent;
+import com.app.exception.QuotaExceededException;
 import com.app.model.*;
 import com.app.repository.*;
+import com.app.util.QueryMetrics;
+import io.micrometer.observation.annotation.Observed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
 
 @Service
+@Observed(name = "app.service")
 public class DocumentService {
 
-    private final TransactionRepository transactionRepository;
-    private final DebtHeaderRepository debtHeaderRepository;
-
     private final TransactionDocumentRepository transactionDocumentRepository;
     private final DebtDocumentRepository debtDocumentRepository;
 
+    private final DocumentPreviewService documentPreviewService;
+
     private final JdbcTemplate jdbcTemplate;
+    private final QueryMetrics queryMetrics;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final int maxDocsPerOwner;
+    private final long projectQuotaBytes;
 
-    public DocumentService(TransactionRepository transactionRepository,
-                           DebtHeaderRepository debtHeaderRepository,
-                           TransactionDocumentRepository transactionDocumentRepository,
+    public DocumentService(TransactionDocumentRepository transactionDocumentRepository,
                            DebtDocumentRepository debtDocumentRepository,
-                           JdbcTemplate jdbcTemplate) {
-        this.transactionRepository = transactionRepository;
-        this.debtHeaderRepository = debtHeaderRepository;
+                           DocumentPreviewService documentPreviewService,
+                           JdbcTemplate jdbcTemplate,
+                           QueryMetrics queryMetrics,
+                           ApplicationEventPublisher eventPublisher,
+                           @Value("${app.documents.max-per-owner:50}") int maxDocsPerOwner,
+                           @Value("${app.documents.project-quota-bytes:0}") long projectQuotaBytes) {
         this.transactionDocumentRepository = transactionDocumentRepository;
         this.debtDocumentRepository = debtDocumentRepository;
+        this.documentPreviewService = documentPreviewService;
         this.jdbcTemplate = jdbcTemplate;
+        this.queryMetrics = queryMetrics;
+        this.eventPublisher = eventPublisher;
+        this.maxDocsPerOwner = maxDocsPerOwner;
+        this.projectQuotaBytes = projectQuotaBytes;
+    }
+
+    /**
+     * Early, read-only check (e.g. before a chunked upload is spooled); the
+     * authoritative check happens again atomically when the document is inserted.
+     */
+    @Transactional(readOnly = true)
+    public void checkUploadAllowed(DocumentOwnerType ownerType, Long ownerId, long size) {
+        Long projectId = ownerProjectId(ownerType, ownerId);
+        checkOwnerCount(ownerType, ownerId);
+
+        if (projectQuotaBytes > 0) {
+            List<Long> used = queryMetrics.list("documents.project-usage",
+                    "select total_bytes from project_document_usage where project_id = ?",
+                    q -> jdbcTemplate.queryForList(q, Long.class, projectId));
+            long usedBytes = used.isEmpty() || used.get(0) == null ? 0L : used.get(0);
+            if (usedBytes + size > projectQuotaBytes) throw quotaExceeded(usedBytes);
+        }
     }
 
     // ------------------- TRANSACTION DOCS -------------------
 
     @Transactional
     public Long uploadTransactionDoc(Long transactionId, byte[] bytes, String fileName, String contentType, String dsc) {
-        if (transactionId == null) throw new IllegalArgumentException("شناسه پرداخت الزامی است.");
         if (bytes == null || bytes.length == 0) throw new IllegalArgumentException("فایل خالی است.");
+        return uploadTransactionDoc(transactionId, new ByteArrayInputStream(bytes), bytes.length, fileName, contentType, dsc);
+    }
 
-        Transaction tx = transactionRepository.findById(transactionId)
-                .orElseThrow(() -> new IllegalArgumentException("پرداخت مورد نظر یافت نشد. (شناسه: " + transactionId + ")"));
+    /**
+     * Streams the content straight into the blob column, so the file is never
+     * materialized again as a byte[] (chunked uploads pass the spool file here).
+     */
+    @Transactional
+    public Long uploadTransactionDoc(Long transactionId, InputStream content, long size,
+                                     String fileName, String contentType, String dsc) {
+        if (transactionId == null) throw new IllegalArgumentException("شناسه پرداخت الزامی است.");
+        if (content == null || size <= 0) throw new IllegalArgumentException("فایل خالی است.");
 
-        TransactionDocument doc = new TransactionDocument();
-        doc.setTransaction(tx);
-        doc.setDoc(bytes);
-        doc.setFileName(trimToNull(fileName));
-        doc.setContentType(trimToNull(contentType));
-        doc.setDsc(trimToNull(dsc));
+        Long projectId = ownerProjectId(DocumentOwnerType.TRANSACTION, transactionId);
+        checkOwnerCount(DocumentOwnerType.TRANSACTION, transactionId);
+        reserveProjectUsage(projectId, size, 1);
 
-        return transactionDocumentRepository.save(doc).getId();
+        Long id = insertDoc("transaction_documents", "transaction_id", transactionId,
+                content, size, fileName, contentType, dsc);
+        eventPublisher.publishEvent(new DocumentUploadedEvent(DocumentOwnerType.TRANSACTION, id, trimToNull(contentType)));
+        return id;
     }
 
     @Transactional(readOnly = true)
     public List<DocumentMetaResponse> listTransactionDocs(Long transactionId) {
         if (transactionId == null) throw new IllegalArgumentException("شناسه پرداخت الزامی است.");
 
-        return jdbcTemplate.query("""
+        return queryMetrics.list("documents.list-transaction", """
                 select id,
                        transaction_id as owner_id,
                        datalength(doc) as size_bytes,
@@ -67,7 +124,7 @@ public class DocumentService {
                 from transaction_documents
                 where transaction_id = ?
                 order by id desc
-                """, (rs, rowNum) -> new DocumentMetaResponse(
+                """, q -> jdbcTemplate.query(q, (rs, rowNum) -> new DocumentMetaResponse(
                 rs.getLong("id"),
                 rs.getLong("owner_id"),
                 rs.getLong("size_bytes"),
@@ -75,7 +132,7 @@ public class DocumentService {
                 rs.getString("content_type"),
                 rs.getString("created_at"),
                 rs.getString("dsc")
-        ), transactionId);
+        ), transactionId));
     }
 
     @Transactional(readOnly = true)
@@ -86,6 +143,11 @@ public class DocumentService {
                 .orElseThrow(() -> new IllegalArgumentException("سند پرداخت یافت نشد. (شناسه: " + docId + ")"));
     }
 
+    @Transactional(readOnly = true)
+    public void writeTransactionDocContent(Long docId, OutputStream out) {
+        writeContent("transaction_documents", docId, out);
+    }
+
     @Transactional
     public void deleteTransactionDoc(Long transactionId, Long docId) {
         if (transactionId == null) throw new IllegalArgumentException("شناسه پرداخت الزامی است.");
@@ -97,6 +159,8 @@ public class DocumentService {
             throw new IllegalArgumentException("این سند متعلق به این پرداخت نیست.");
         }
 
+        releaseProjectUsage(DocumentOwnerType.TRANSACTION, docId);
+        documentPreviewService.deletePreview(DocumentOwnerType.TRANSACTION, docId);
         transactionDocumentRepository.delete(doc);
     }
 
@@ -104,27 +168,31 @@ public class DocumentService {
 
     @Transactional
     public Long uploadDebtDoc(Long debtId, byte[] bytes, String fileName, String contentType, String dsc) {
-        if (debtId == null) throw new IllegalArgumentException("شناسه بدهی الزامی است.");
         if (bytes == null || bytes.length == 0) throw new IllegalArgumentException("فایل خالی است.");
+        return uploadDebtDoc(debtId, new ByteArrayInputStream(bytes), bytes.length, fileName, contentType, dsc);
+    }
 
-        DebtHeader debt = debtHeaderRepository.findById(debtId)
-                .orElseThrow(() -> new IllegalArgumentException("بدهی مورد نظر یافت نشد. (شناسه: " + debtId + ")"));
+    @Transactional
+    public Long uploadDebtDoc(Long debtId, InputStream content, long size,
+                              String fileName, String contentType, String dsc) {
+        if (debtId == null) throw new IllegalArgumentException("شناسه بدهی الزامی است.");
+        if (content == null || size <= 0) throw new IllegalArgumentException("فایل خالی است.");
 
-        DebtDocument doc = new DebtDocument();
-        doc.setDebtHeader(debt);
-        doc.setDoc(bytes);
-        doc.setFileName(trimToNull(fileName));
-        doc.setContentType(trimToNull(contentType));
-        doc.setDsc(trimToNull(dsc));
+        Long projectId = ownerProjectId(DocumentOwnerType.DEBT, debtId);
+        checkOwnerCount(DocumentOwnerType.DEBT, debtId);
+        reserveProjectUsage(projectId, size, 1);
 
-        return debtDocumentRepository.save(doc).getId();
+        Long id = insertDoc("debts_documents", "debt_header_id", debtId,
+                content, size, fileName, contentType, dsc);
+        eventPublisher.publishEvent(new DocumentUploadedEvent(DocumentOwnerType.DEBT, id, trimToNull(contentType)));
+        return id;
     }
 
     @Transactional(readOnly = true)
     public List<DocumentMetaResponse> listDebtDocs(Long debtId) {
         if (debtId == null) throw new IllegalArgumentException("شناسه بدهی الزامی است.");
 
-        return jdbcTemplate.query("""
+        return queryMetrics.list("documents.list-debt", """
                 select id,
                        debt_header_id as owner_id,
                        datalength(doc) as size_bytes,
@@ -135,7 +203,7 @@ public class DocumentService {
                 from debts_documents
                 where debt_header_id = ?
                 order by id desc
-                """, (rs, rowNum) -> new DocumentMetaResponse(
+                """, q -> jdbcTemplate.query(q, (rs, rowNum) -> new DocumentMetaResponse(
                 rs.getLong("id"),
                 rs.getLong("owner_id"),
                 rs.getLong("size_bytes"),
@@ -143,7 +211,7 @@ public class DocumentService {
                 rs.getString("content_type"),
                 rs.getString("created_at"),
                 rs.getString("dsc")
-        ), debtId);
+        ), debtId));
     }
 
     @Transactional(readOnly = true)
@@ -154,6 +222,11 @@ public class DocumentService {
                 .orElseThrow(() -> new IllegalArgumentException("سند بدهی یافت نشد. (شناسه: " + docId + ")"));
     }
 
+    @Transactional(readOnly = true)
+    public void writeDebtDocContent(Long docId, OutputStream out) {
+        writeContent("debts_documents", docId, out);
+    }
+
     @Transactional
     public void deleteDebtDoc(Long debtId, Long docId) {
         if (debtId == null) throw new IllegalArgumentException("شناسه بدهی الزامی است.");
@@ -165,9 +238,150 @@ public class DocumentService {
             throw new IllegalArgumentException("این سند متعلق به این بدهی نیست.");
         }
 
+        releaseProjectUsage(DocumentOwnerType.DEBT, docId);
+        documentPreviewService.deletePreview(DocumentOwnerType.DEBT, docId);
         debtDocumentRepository.delete(doc);
     }
 
+    private Long insertDoc(String table, String ownerColumn, Long ownerId,
+                           InputStream content, long size,
+                           String fileName, String contentType, String dsc) {
+        String sql = "insert into " + table + " (" + ownerColumn + ", doc, file_name, content_type, created_at, dsc) "
+                + "values (?, ?, ?, ?, ?, ?)";
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        queryMetrics.update("documents.insert", sql, q -> jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(q, Statement.RETURN_GENERATED_KEYS);
+            ps.setLong(1, ownerId);
+            ps.setBinaryStream(2, content, size);
+            ps.setString(3, trimToNull(fileName));
+            ps.setString(4, trimToNull(contentType));
+            ps.setTimestamp(5, Timestamp.valueOf(LocalDateTime.now()));
+            ps.setString(6, trimToNull(dsc));
+            return ps;
+        }, keyHolder));
+
+        Number key = keyHolder.getKey();
+        if (key == null) throw new IllegalStateException("شناسه سند ثبت‌شده دریافت نشد.");
+        return key.longValue();
+    }
+
+    /**
+     * Called when a transaction or debt moves to another project: its attachments are
+     * charged to the new project (whose quota applies) and released from the old one.
+     */
+    @Transactional
+    public void moveProjectUsage(DocumentOwnerType ownerType, Long ownerId, Long fromProjectId, Long toProjectId) {
+        if (ownerId == null || Objects.equals(fromProjectId, toProjectId)) return;
+
+        String sql = ownerType == DocumentOwnerType.TRANSACTION
+                ? "select coalesce(sum(cast(datalength(doc) as bigint)),0) as size_bytes, count(*) as doc_count from transaction_documents where transaction_id = ?"
+                : "select coalesce(sum(cast(datalength(doc) as bigint)),0) as size_bytes, count(*) as doc_count from debts_documents where debt_header_id = ?";
+        long[] usage = queryMetrics.one("documents.owner-usage", sql, q -> jdbcTemplate.queryForObject(q,
+                (rs, rowNum) -> new long[]{rs.getLong("size_bytes"), rs.getInt("doc_count")}, ownerId));
+        if (usage == null || usage[1] == 0) return;
+
+        reserveProjectUsage(toProjectId, usage[0], (int) usage[1]);
+        queryMetrics.update("documents.usage-release", """
+                update project_document_usage
+                set total_bytes = case when total_bytes > ? then total_bytes - ? else 0 end,
+                    doc_count = case when doc_count > ? then doc_count - ? else 0 end,
+                    updated_at = getdate()
+                where project_id = ?
+                """, q -> jdbcTemplate.update(q, usage[0], usage[0], usage[1], usage[1], fromProjectId));
+    }
+
+    // ------------------- LIMITS / QUOTA -------------------
+
+    private Long ownerProjectId(DocumentOwnerType ownerType, Long ownerId) {
+        String ownerTable = ownerType == DocumentOwnerType.TRANSACTION ? "transactions" : "debts_header";
+        List<Long> rows = queryMetrics.list("documents.owner-project",
+                "select project_id from " + ownerTable + " where id = ?",
+                q -> jdbcTemplate.queryForList(q, Long.class, ownerId));
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException(ownerType.getTitle() + " مورد نظر یافت نشد. (شناسه: " + ownerId + ")");
+        }
+        return rows.get(0);
+    }
+
+    private void checkOwnerCount(DocumentOwnerType ownerType, Long ownerId) {
+        if (maxDocsPerOwner <= 0) return;
+
+        String sql = ownerType == DocumentOwnerType.TRANSACTION
+                ? "select count(*) from transaction_documents where transaction_id = ?"
+                : "select count(*) from debts_documents where debt_header_id = ?";
+        Integer count = queryMetrics.one("documents.owner-count", sql, q -> jdbcTemplate.queryForObject(q, Integer.class, ownerId));
+        if (count != null && count >= maxDocsPerOwner) {
+            throw new QuotaExceededException("حداکثر " + maxDocsPerOwner + " سند برای هر " + ownerType.getTitle() + " مجاز است.");
+        }
+    }
+
+    /**
+     * Conditional increment: the row lock taken by the update serializes concurrent
+     * uploads of the same project, and it rolls back together with the insert.
+     */
+    private void reserveProjectUsage(Long projectId, long size, int docs) {
+        queryMetrics.update("documents.usage-ensure-row", """
+                merge project_document_usage with (holdlock) as u
+                using (select ? as project_id) as s
+                on u.project_id = s.project_id
+                when not matched then insert (project_id, total_bytes, doc_count) values (s.project_id, 0, 0);
+                """, q -> jdbcTemplate.update(q, projectId));
+
+        int updated = queryMetrics.update("documents.usage-reserve", """
+                update project_document_usage
+                set total_bytes = total_bytes + ?,
+                    doc_count = doc_count + ?,
+                    updated_at = getdate()
+                where project_id = ?
+                  and (? <= 0 or total_bytes + ? <= ?)
+                """, q -> jdbcTemplate.update(q, size, docs, projectId, projectQuotaBytes, size, projectQuotaBytes));
+
+        if (updated == 0) {
+            Long used = queryMetrics.one("documents.project-usage",
+                    "select total_bytes from project_document_usage where project_id = ?",
+                    q -> jdbcTemplate.queryForObject(q, Long.class, projectId));
+            throw quotaExceeded(used == null ? 0L : used);
+        }
+    }
+
+    private void releaseProjectUsage(DocumentOwnerType ownerType, Long docId) {
+        String join = ownerType == DocumentOwnerType.TRANSACTION
+                ? """
+                  join transactions o on o.project_id = u.project_id
+                  join transaction_documents d on d.transaction_id = o.id
+                  """
+                : """
+                  join debts_header o on o.project_id = u.project_id
+                  join debts_documents d on d.debt_header_id = o.id
+                  """;
+
+        queryMetrics.update("documents.usage-release", """
+                update u
+                set total_bytes = case when u.total_bytes > datalength(d.doc) then u.total_bytes - datalength(d.doc) else 0 end,
+                    doc_count = case when u.doc_count > 0 then u.doc_count - 1 else 0 end,
+                    updated_at = getdate()
+                from project_document_usage u
+                """ + join + " where d.id = ?", q -> jdbcTemplate.update(q, docId));
+    }
+
+    private QuotaExceededException quotaExceeded(long usedBytes) {
+        return new QuotaExceededException("سهمیه فضای اسناد این پروژه تکمیل شده است. (استفاده‌شده: "
+                + (usedBytes / (1024 * 1024)) + " از " + (projectQuotaBytes / (1024 * 1024)) + " مگابایت)");
+    }
+
+    private void writeContent(String table, Long docId, OutputStream out) {
+        if (docId == null) throw new IllegalArgumentException("شناسه سند الزامی است.");
+
+        queryMetrics.run("documents.content", "select doc from " + table + " where id = ?", q -> jdbcTemplate.query(q, (RowCallbackHandler) rs -> {
+            try (InputStream in = rs.getBinaryStream("doc")) {
+                if (in != null) in.transferTo(out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, docId));
+    }
+
     private String trimToNull(String s) {
         if (s == null) return null;
         String t = s.trim();
@@ -0,0 +1,288 @@
+package com.app.service;
+
+import com.app.dto.item.ItemSuggestionResponse;
+import com.app.event.DebtItemsChangedEvent;
+import com.app.event.ItemCategoriesChangedEvent;
+import com.app.event.ItemChangedEvent;
+import com.app.util.TextNormalizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Prefix index for item autocomplete in debt line entry.
+ *
+ * Keys are the normalized code, the normalized title and every word suffix of the title,
+ * kept in one sorted array; a lookup is a binary search for the prefix followed by a scan
+ * of the matching run. The snapshot is copy-on-write: readers never lock, and an item
+ * write replaces only its own keys (merge into a new array) instead of reloading everything.
+ *
+ * Usage counts (debt lines per item) live outside the snapshot: debt writes apply per-item
+ * deltas, and a background recount picks up writes made on other instances.
+ */
+@Component
+public class ItemAutocompleteIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ItemAutocompleteIndex.class);
+
+    private static final byte KIND_CODE = 0;
+    private static final byte KIND_TITLE = 1;
+    private static final byte KIND_WORD = 2;
+
+    private static final String SELECT_ITEMS = """
+            select i.id, i.code, i.title, i.item_category_id, c.title as category_title
+            from items i
+            join item_categories c on c.id = i.item_category_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    // serializes snapshot writers; not a monitor, they query while holding it
+    private final Lock writeLock = new ReentrantLock();
+    private volatile Map<Long, Long> usage; // item id -> debt lines; null until first loaded
+
+    public ItemAutocompleteIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            snapshot();
+        } catch (RuntimeException e) {
+            log.warn("Item autocomplete index warm-up failed, will load on first request: {}", e.toString());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemChanged(ItemChangedEvent event) {
+        writeLock.lock();
+        try {
+            Snapshot s = current.get();
+            if (s == null) return; // the full load will see the committed row
+
+            Entry entry = null;
+            if (!event.deleted()) {
+                List<Entry> rows = jdbcTemplate.query(SELECT_ITEMS + " where i.id = ?",
+                        (rs, rowNum) -> entry(rs.getLong("id"), rs.getString("code"), rs.getString("title"),
+                                rs.getLong("item_category_id"), rs.getString("category_title")),
+                        event.itemId());
+                if (!rows.isEmpty()) entry = rows.get(0);
+            }
+            current.set(s.replace(event.itemId(), entry));
+        } catch (RuntimeException e) {
+            current.set(null);
+            log.warn("Item autocomplete update failed for item {}: {}", event.itemId(), e.toString());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoriesChanged(ItemCategoriesChangedEvent event) {
+        // category titles are part of every suggestion; categories change rarely
+        writeLock.lock();
+        try {
+            current.set(null);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDebtItemsChanged(DebtItemsChangedEvent event) {
+        Map<Long, Long> u = usage;
+        if (u == null) return; // the first load counts the committed lines
+        for (Long id : event.addedItemIds()) u.merge(id, 1L, Long::sum);
+        for (Long id : event.removedItemIds()) u.computeIfPresent(id, (k, v) -> v > 1 ? v - 1 : null);
+    }
+
+    /**
+     * Full recount, off the request path: corrects drift from debts written on other instances.
+     */
+    @Scheduled(fixedDelayString = "${app.items.autocomplete.usage-refresh-ms:600000}",
+            initialDelayString = "${app.items.autocomplete.usage-refresh-ms:600000}")
+    public void refreshUsage() {
+        if (usage == null) return; // not loaded yet; the first request loads it
+        try {
+            usage = loadUsage();
+        } catch (RuntimeException e) {
+            log.warn("Item usage recount failed, keeping the current counts: {}", e.toString());
+        }
+    }
+
+    /**
+     * Exact code/title matches first, then by usage (most used first), then
+     * code/title prefix before word prefix, then shorter titles.
+     */
+    public List<ItemSuggestionResponse> suggest(String q, Long categoryId, int limit) {
+        String prefix = TextNormalizer.normalize(q);
+        if (prefix.isEmpty() || limit <= 0) return List.of();
+
+        Snapshot s = snapshot();
+        Map<Long, Long> u = usage;
+
+        Map<Long, Integer> best = new HashMap<>();
+        for (int i = s.lowerBound(prefix); i < s.keys.length && s.keys[i].startsWith(prefix); i++) {
+            Entry e = s.entries.get(s.keyIds[i]);
+            if (categoryId != null && e.categoryId != categoryId) continue;
+
+            int rank = s.keyKinds[i] == KIND_WORD ? 2 : s.keys[i].length() == prefix.length() ? 0 : 1;
+            best.merge(e.id, rank, Math::min);
+        }
+
+        List<Map.Entry<Long, Integer>> hits = new ArrayList<>(best.entrySet());
+        hits.sort((a, b) -> {
+            boolean exactA = a.getValue() == 0, exactB = b.getValue() == 0;
+            if (exactA != exactB) return exactA ? -1 : 1;
+            Entry ea = s.entries.get(a.getKey()), eb = s.entries.get(b.getKey());
+            long ua = u.getOrDefault(ea.id, 0L), ub = u.getOrDefault(eb.id, 0L);
+            if (ua != ub) return Long.compare(ub, ua);
+            if (!a.getValue().equals(b.getValue())) return Integer.compare(a.getValue(), b.getValue());
+            if (ea.titleNorm.length() != eb.titleNorm.length()) return Integer.compare(ea.titleNorm.length(), eb.titleNorm.length());
+            return Long.compare(ea.id, eb.id);
+        });
+
+        List<ItemSuggestionResponse> out = new ArrayList<>(Math.min(limit, hits.size()));
+        for (int i = 0; i < hits.size() && out.size() < limit; i++) {
+            Entry e = s.entries.get(hits.get(i).getKey());
+            out.add(new ItemSuggestionResponse(e.id, e.code, e.title, e.categoryId, e.categoryTitle, u.getOrDefault(e.id, 0L)));
+        }
+        return out;
+    }
+
+    // ---------------- internals ----------------
+
+    private Snapshot snapshot() {
+        Snapshot s = current.get();
+        return s != null ? s : rebuild();
+    }
+
+    private Snapshot rebuild() {
+        writeLock.lock();
+        try {
+            Snapshot s = current.get();
+            if (s != null) return s;
+
+            // counts are kept up to date by deltas; categories changing doesn't invalidate them
+            if (usage == null) usage = loadUsage();
+
+            List<Entry> rows = jdbcTemplate.query(SELECT_ITEMS, (rs, rowNum) -> entry(rs.getLong("id"),
+                    rs.getString("code"), rs.getString("title"),
+                    rs.getLong("item_category_id"), rs.getString("category_title")));
+
+            s = Snapshot.build(rows);
+            current.set(s);
+            return s;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private Map<Long, Long> loadUsage() {
+        Map<Long, Long> usage = new ConcurrentHashMap<>();
+        jdbcTemplate.query("""
+                select item_id, count(*) as cnt
+                from debts_detail
+                group by item_id
+                """, (RowCallbackHandler) rs -> {
+            usage.put(rs.getLong("item_id"), rs.getLong("cnt"));
+        });
+        return usage;
+    }
+
+    private static Entry entry(long id, String code, String title, long categoryId, String categoryTitle) {
+        return new Entry(id, code, title, categoryId, categoryTitle,
+                TextNormalizer.normalize(code), TextNormalizer.normalize(title));
+    }
+
+    private record Entry(long id, String code, String title, long categoryId, String categoryTitle,
+                         String codeNorm, String titleNorm) {
+
+        void addKeys(List<Key> out) {
+            if (!codeNorm.isEmpty()) out.add(new Key(codeNorm, id, KIND_CODE));
+            if (titleNorm.isEmpty()) return;
+            out.add(new Key(titleNorm, id, KIND_TITLE));
+            for (int i = titleNorm.indexOf(' '); i >= 0; i = titleNorm.indexOf(' ', i + 1)) {
+                if (i + 1 < titleNorm.length()) out.add(new Key(titleNorm.substring(i + 1), id, KIND_WORD));
+            }
+        }
+    }
+
+    private record Key(String text, long id, byte kind) {}
+
+    private record Snapshot(Map<Long, Entry> entries, String[] keys, long[] keyIds, byte[] keyKinds) {
+
+        static Snapshot build(List<Entry> rows) {
+            Map<Long, Entry> entries = new HashMap<>(rows.size() * 2);
+            List<Key> keys = new ArrayList<>(rows.size() * 3);
+            for (Entry e : rows) {
+                entries.put(e.id, e);
+                e.addKeys(keys);
+            }
+            keys.sort(Comparator.comparing(Key::text));
+            return of(entries, keys);
+        }
+
+        static Snapshot of(Map<Long, Entry> entries, List<Key> sorted) {
+            String[] k = new String[sorted.size()];
+            long[] ids = new long[sorted.size()];
+            byte[] kinds = new byte[sorted.size()];
+            for (int i = 0; i < k.length; i++) {
+                Key key = sorted.get(i);
+                k[i] = key.text;
+                ids[i] = key.id;
+                kinds[i] = key.kind;
+            }
+            return new Snapshot(entries, k, ids, kinds);
+        }
+
+        /**
+         * Copy with the keys of {@code id} replaced by those of {@code entry} (null = removed):
+         * one linear merge of the existing array with the few new keys.
+         */
+        Snapshot replace(long id, Entry entry) {
+            Map<Long, Entry> nextEntries = new HashMap<>(entries);
+            List<Key> added = new ArrayList<>();
+            if (entry == null) {
+                nextEntries.remove(id);
+            } else {
+                nextEntries.put(id, entry);
+                entry.addKeys(added);
+                added.sort(Comparator.comparing(Key::text));
+            }
+
+            List<Key> merged = new ArrayList<>(keys.length + added.size());
+            int j = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (keyIds[i] == id) continue;
+                while (j < added.size() && added.get(j).text.compareTo(keys[i]) < 0) merged.add(added.get(j++));
+                merged.add(new Key(keys[i], keyIds[i], keyKinds[i]));
+            }
+            while (j < added.size()) merged.add(added.get(j++));
+            return of(nextEntries, merged);
+        }
+
+        int lowerBound(String prefix) {
+            int lo = 0, hi = keys.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (keys[mid].compareTo(prefix) < 0) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+    }
+}
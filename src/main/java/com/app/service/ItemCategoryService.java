@@ -1,9 +1,12 @@
 package com.app.service;
 
 import com.app.dto.itemcategory.*;
+import com.app.event.ItemCategoriesChangedEvent;
 import com.app.model.ItemCategory;
 import com.app.repository.ItemCategoryRepository;
 import com.app.repository.ItemRepository;
+import com.app.util.TextNormalizer;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,19 +17,27 @@ public class ItemCategoryService {
 
     private final ItemCategoryRepository repo;
     private final ItemRepository itemRepo;
+    private final ItemCategoryTreeCache treeCache;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public ItemCategoryService(ItemCategoryRepository repo, ItemRepository itemRepo) {
+    public ItemCategoryService(ItemCategoryRepository repo,
+                               ItemRepository itemRepo,
+                               ItemCategoryTreeCache treeCache,
+                               ApplicationEventPublisher eventPublisher) {
         this.repo = repo;
         this.itemRepo = itemRepo;
+        this.treeCache = treeCache;
+        this.eventPublisher = eventPublisher;
     }
 
+    @Transactional
     public ItemCategoryResponse create(ItemCategoryCreateRequest req) {
         if (req == null) throw new IllegalArgumentException("اطلاعات دسته‌بندی ارسال نشده است.");
 
         String title = trimToNull(req.title());
         if (title == null) throw new IllegalArgumentException("عنوان دسته‌بندی الزامی است.");
 
-        if (repo.existsByTitleIgnoreCase(title)) {
+        if (repo.existsByTitleNorm(TextNormalizer.normalize(title))) {
             throw new IllegalArgumentException("این عنوان دسته‌بندی قبلاً ثبت شده است: " + title);
         }
 
@@ -37,7 +48,9 @@ public class ItemCategoryService {
         }
 
         ItemCategory c = new ItemCategory(null, title, parent, trimToNull(req.dsc()));
-        return toResponse(repo.save(c));
+        ItemCategory saved = repo.save(c);
+        eventPublisher.publishEvent(new ItemCategoriesChangedEvent(saved.getId()));
+        return toResponse(saved);
     }
 
     public List<ItemCategoryResponse> getAll() {
@@ -61,7 +74,7 @@ public class ItemCategoryService {
         String title = trimToNull(req.title());
         if (title == null) throw new IllegalArgumentException("عنوان دسته‌بندی الزامی است.");
 
-        repo.findByTitleIgnoreCase(title)
+        repo.findFirstByTitleNorm(TextNormalizer.normalize(title))
                 .filter(other -> !other.getId().equals(id))
                 .ifPresent(x -> { throw new IllegalArgumentException("این عنوان دسته‌بندی قبلاً ثبت شده است: " + title); });
 
@@ -86,9 +99,11 @@ public class ItemCategoryService {
         c.setTitle(title);
         c.setParent(newParent);
         c.setDsc(trimToNull(req.dsc()));
+        eventPublisher.publishEvent(new ItemCategoriesChangedEvent(id));
         return toResponse(c);
     }
 
+    @Transactional
     public void delete(Long id) {
         if (id == null) throw new IllegalArgumentException("شناسه دسته‌بندی الزامی است.");
 
@@ -104,44 +119,27 @@ public class ItemCategoryService {
         }
 
         repo.deleteById(id);
+        eventPublisher.publishEvent(new ItemCategoriesChangedEvent(id));
     }
 
     public List<ItemCategoryTreeNodeResponse> getTree() {
-        List<ItemCategory> all = repo.findAll();
-        Map<Long, ItemCategoryTreeNodeResponse> nodes = new HashMap<>();
-
-        for (ItemCategory c : all) {
-            nodes.put(c.getId(), new ItemCategoryTreeNodeResponse(
-                    c.getId(),
-                    c.getTitle(),
-                    c.getParent() == null ? null : c.getParent().getId(),
-                    c.getDsc()
-            ));
-        }
+        return treeCache.snapshot().roots();
+    }
 
-        List<ItemCategoryTreeNodeResponse> roots = new ArrayList<>();
-        for (ItemCategory c : all) {
-            ItemCategoryTreeNodeResponse node = nodes.get(c.getId());
-            if (c.getParent() == null) {
-                roots.add(node);
-            } else {
-                ItemCategoryTreeNodeResponse parent = nodes.get(c.getParent().getId());
-                if (parent != null) parent.getChildren().add(node);
-                else roots.add(node);
-            }
-        }
+    public ItemCategoryTreeNodeResponse getSubtree(Long id) {
+        if (id == null) throw new IllegalArgumentException("شناسه دسته‌بندی الزامی است.");
 
-        sortTreeByTitle(roots);
-        return roots;
+        ItemCategoryTreeNodeResponse node = treeCache.snapshot().nodes().get(id);
+        if (node == null) throw new IllegalArgumentException("دسته‌بندی یافت نشد. (شناسه: " + id + ")");
+        return node;
     }
 
-    private void sortTreeByTitle(List<ItemCategoryTreeNodeResponse> nodes) {
-        nodes.sort(Comparator.comparing(ItemCategoryTreeNodeResponse::getTitle, String.CASE_INSENSITIVE_ORDER));
-        for (ItemCategoryTreeNodeResponse n : nodes) {
-            if (n.getChildren() != null && !n.getChildren().isEmpty()) {
-                sortTreeByTitle(n.getChildren());
-            }
-        }
+    public List<ItemCategoryResponse> getPath(Long id) {
+        if (id == null) throw new IllegalArgumentException("شناسه دسته‌بندی الزامی است.");
+
+        List<ItemCategoryResponse> path = treeCache.snapshot().path(id);
+        if (path.isEmpty()) throw new IllegalArgumentException("دسته‌بندی یافت نشد. (شناسه: " + id + ")");
+        return path;
     }
 
     private ItemCategoryResponse toResponse(ItemCategory c) {
@@ -0,0 +1,160 @@
+package com.app.service;
+
+import com.app.dto.itemcategory.ItemCategoryResponse;
+import com.app.dto.itemcategory.ItemCategoryTreeNodeResponse;
+import com.app.enums.ReferenceTable;
+import com.app.event.ItemCategoriesChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pre-sorted, immutable item category tree. Built from one flat query, children
+ * sorted once per level with a Persian collator, and replaced after each
+ * committed category change. Tree, subtree and ancestor path are all served from it.
+ * Snapshots carry the data_versions counter read before their rows, which is also checked
+ * periodically for changes made on other instances (see ProjectTreeCache).
+ */
+@Component
+public class ItemCategoryTreeCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ItemCategoryTreeCache.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataVersionService dataVersionService;
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    private final Lock rebuildLock = new ReentrantLock(); // see ProjectTreeCache.rebuild
+
+    public ItemCategoryTreeCache(JdbcTemplate jdbcTemplate, DataVersionService dataVersionService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataVersionService = dataVersionService;
+    }
+
+    public Snapshot snapshot() {
+        Snapshot s = current.get();
+        return s != null ? s : rebuild();
+    }
+
+    public Snapshot snapshot(long minVersion) {
+        Snapshot s = current.get();
+        return s != null && s.version() >= minVersion ? s : rebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoriesChanged(ItemCategoriesChangedEvent event) {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            current.set(null);
+            log.warn("Item category tree rebuild failed after change of category {}: {}", event.categoryId(), e.toString());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.reference.version-check-ms:30000}",
+            initialDelayString = "${app.reference.version-check-ms:30000}")
+    public void checkVersion() {
+        Snapshot s = current.get();
+        if (s == null) return;
+        try {
+            if (dataVersionService.current(ReferenceTable.ITEM_CATEGORIES) > s.version()) rebuild();
+        } catch (RuntimeException e) {
+            log.warn("Item category tree version check failed, will retry: {}", e.toString());
+        }
+    }
+
+    public Snapshot rebuild() {
+        rebuildLock.lock();
+        try {
+            long version = dataVersionService.current(ReferenceTable.ITEM_CATEGORIES);
+            List<ItemCategoryResponse> rows = jdbcTemplate.query("""
+                    select id, title, parent_id, dsc
+                    from item_categories
+                    """, (rs, rowNum) -> new ItemCategoryResponse(
+                    rs.getLong("id"),
+                    rs.getString("title"),
+                    rs.getObject("parent_id", Long.class),
+                    rs.getString("dsc")
+            ));
+
+            Snapshot s = build(rows, version);
+            current.set(s);
+            return s;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    static Snapshot build(List<ItemCategoryResponse> rows, long version) {
+        // Collator is not thread-safe; one instance per build. SECONDARY ignores case
+        // but keeps diacritics, and orders Persian letters (پ چ ژ گ ی ک) correctly.
+        Collator collator = Collator.getInstance(Locale.forLanguageTag("fa"));
+        collator.setStrength(Collator.SECONDARY);
+
+        Map<Long, ItemCategoryResponse> rowById = new HashMap<>(rows.size() * 2);
+        Map<Long, ItemCategoryTreeNodeResponse> nodes = new HashMap<>(rows.size() * 2);
+        Map<Long, CollationKey> keys = new HashMap<>(rows.size() * 2);
+        for (ItemCategoryResponse r : rows) {
+            rowById.put(r.id(), r);
+            nodes.put(r.id(), new ItemCategoryTreeNodeResponse(r.id(), r.title(), r.parentId(), r.dsc()));
+            keys.put(r.id(), collator.getCollationKey(r.title() == null ? "" : r.title()));
+        }
+
+        List<ItemCategoryTreeNodeResponse> roots = new ArrayList<>();
+        Map<Long, List<ItemCategoryTreeNodeResponse>> childrenOf = new HashMap<>();
+        for (ItemCategoryResponse r : rows) {
+            ItemCategoryTreeNodeResponse node = nodes.get(r.id());
+            if (r.parentId() == null || !nodes.containsKey(r.parentId())) roots.add(node);
+            else childrenOf.computeIfAbsent(r.parentId(), k -> new ArrayList<>()).add(node);
+        }
+
+        Comparator<ItemCategoryTreeNodeResponse> byTitle = Comparator
+                .comparing((ItemCategoryTreeNodeResponse n) -> keys.get(n.getId()))
+                .thenComparing(ItemCategoryTreeNodeResponse::getId);
+
+        roots.sort(byTitle);
+        for (ItemCategoryTreeNodeResponse node : nodes.values()) {
+            List<ItemCategoryTreeNodeResponse> children = childrenOf.get(node.getId());
+            if (children == null) {
+                node.setChildren(List.of());
+            } else {
+                children.sort(byTitle);
+                node.setChildren(Collections.unmodifiableList(children));
+            }
+        }
+
+        return new Snapshot(Collections.unmodifiableList(roots),
+                Collections.unmodifiableMap(nodes),
+                Collections.unmodifiableMap(rowById),
+                version);
+    }
+
+    public record Snapshot(List<ItemCategoryTreeNodeResponse> roots,
+                           Map<Long, ItemCategoryTreeNodeResponse> nodes,
+                           Map<Long, ItemCategoryResponse> rows,
+                           long version) {
+
+        /**
+         * root -> ... -> id (inclusive); empty if id is unknown.
+         */
+        public List<ItemCategoryResponse> path(Long id) {
+            LinkedList<ItemCategoryResponse> path = new LinkedList<>();
+            Set<Long> seen = new HashSet<>();
+            ItemCategoryResponse cur = rows.get(id);
+            while (cur != null && seen.add(cur.id())) {
+                path.addFirst(cur);
+                cur = cur.parentId() == null ? null : rows.get(cur.parentId());
+            }
+            return path;
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package com.app.service;
 
 import com.app.dto.item.*;
+import com.app.event.ItemChangedEvent;
 import com.app.model.Item;
 import com.app.model.ItemCategory;
 import com.app.repository.ItemCategoryRepository;
 import com.app.repository.ItemRepository;
+import com.app.util.TextNormalizer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -15,12 +19,26 @@ public class ItemService {
 
     private final ItemRepository repo;
     private final ItemCategoryRepository categoryRepo;
-
-    public ItemService(ItemRepository repo, ItemCategoryRepository categoryRepo) {
+    private final ItemAutocompleteIndex autocompleteIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int autocompleteDefaultLimit;
+    private final int autocompleteMaxLimit;
+
+    public ItemService(ItemRepository repo,
+                       ItemCategoryRepository categoryRepo,
+                       ItemAutocompleteIndex autocompleteIndex,
+                       ApplicationEventPublisher eventPublisher,
+                       @Value("${app.items.autocomplete.default-limit:10}") int autocompleteDefaultLimit,
+                       @Value("${app.items.autocomplete.max-limit:50}") int autocompleteMaxLimit) {
         this.repo = repo;
         this.categoryRepo = categoryRepo;
+        this.autocompleteIndex = autocompleteIndex;
+        this.eventPublisher = eventPublisher;
+        this.autocompleteDefaultLimit = autocompleteDefaultLimit;
+        this.autocompleteMaxLimit = autocompleteMaxLimit;
     }
 
+    @Transactional
     public ItemResponse create(ItemCreateRequest req) {
         if (req == null) throw new IllegalArgumentException("اطلاعات کالا/خدمت ارسال نشده است.");
 
@@ -31,18 +49,19 @@ public class ItemService {
         if (title == null) throw new IllegalArgumentException("عنوان کالا/خدمت الزامی است.");
         if (req.categoryId() == null) throw new IllegalArgumentException("دسته‌بندی الزامی است.");
 
-        if (repo.existsByCodeIgnoreCase(code)) {
+        if (repo.existsByCodeNorm(TextNormalizer.normalize(code))) {
             throw new IllegalArgumentException("این کد قبلاً ثبت شده است: " + code);
         }
-        if (repo.existsByTitleIgnoreCase(title)) {
+        if (repo.existsByTitleNorm(TextNormalizer.normalize(title))) {
             throw new IllegalArgumentException("این عنوان قبلاً ثبت شده است: " + title);
         }
 
         ItemCategory category = categoryRepo.findById(req.categoryId())
                 .orElseThrow(() -> new IllegalArgumentException("دسته‌بندی یافت نشد. (شناسه: " + req.categoryId() + ")"));
 
-        Item item = new Item(null, category, code, title, trimToNull(req.dsc()));
-        return toResponse(repo.save(item));
+        Item saved = repo.save(new Item(null, category, code, title, trimToNull(req.dsc())));
+        eventPublisher.publishEvent(new ItemChangedEvent(saved.getId(), false));
+        return toResponse(saved);
     }
 
     public List<ItemResponse> getAll() {
@@ -75,11 +94,11 @@ public class ItemService {
         if (title == null) throw new IllegalArgumentException("عنوان کالا/خدمت الزامی است.");
         if (req.categoryId() == null) throw new IllegalArgumentException("دسته‌بندی الزامی است.");
 
-        repo.findByCodeIgnoreCase(code)
+        repo.findFirstByCodeNorm(TextNormalizer.normalize(code))
                 .filter(other -> !other.getId().equals(id))
                 .ifPresent(x -> { throw new IllegalArgumentException("این کد قبلاً ثبت شده است: " + code); });
 
-        repo.findByTitleIgnoreCase(title)
+        repo.findFirstByTitleNorm(TextNormalizer.normalize(title))
                 .filter(other -> !other.getId().equals(id))
                 .ifPresent(x -> { throw new IllegalArgumentException("این عنوان قبلاً ثبت شده است: " + title); });
 
@@ -90,9 +109,11 @@ public class ItemService {
         item.setCode(code);
         item.setTitle(title);
         item.setDsc(trimToNull(req.dsc()));
+        eventPublisher.publishEvent(new ItemChangedEvent(id, false));
         return toResponse(item);
     }
 
+    @Transactional
     public void delete(Long id) {
         if (id == null) throw new IllegalArgumentException("شناسه کالا/خدمت الزامی است.");
 
@@ -100,14 +121,21 @@ public class ItemService {
             throw new IllegalArgumentException("کالا/خدمت یافت نشد. (شناسه: " + id + ")");
         }
         repo.deleteById(id);
+        eventPublisher.publishEvent(new ItemChangedEvent(id, true));
     }
 
     public List<ItemResponse> search(String q, Long categoryId) {
-        return repo.search(q == null ? null : q.trim(), categoryId).stream()
+        return repo.search(TextNormalizer.normalize(q), categoryId).stream()
                 .map(this::toResponse)
                 .toList();
     }
 
+    public List<ItemSuggestionResponse> autocomplete(String q, Long categoryId, Integer limit) {
+        int n = limit == null ? autocompleteDefaultLimit : limit;
+        if (n <= 0) throw new IllegalArgumentException("تعداد نتایج باید بزرگ‌تر از صفر باشد.");
+        return autocompleteIndex.suggest(q, categoryId, Math.min(n, autocompleteMaxLimit));
+    }
+
     private ItemResponse toResponse(Item i) {
         return new ItemResponse(
                 i.getId(),
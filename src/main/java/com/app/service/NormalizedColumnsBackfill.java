@@ -0,0 +1,100 @@
+package com.app.service;
+
+import com.app.util.TextNormalizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fills the *_norm columns (db/04_normalized_columns.sql) for rows written before they existed
+ * or by other tools. New rows are normalized by the entities themselves; this only touches
+ * rows where the norm column is still null, so after the first run it is a handful of cheap selects.
+ */
+@Component
+public class NormalizedColumnsBackfill implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(NormalizedColumnsBackfill.class);
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public NormalizedColumnsBackfill(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int persons = backfillPersons();
+        int items = backfillTitles("items", "code", "code_norm");
+        int categories = backfillTitles("item_categories", null, null);
+        int projects = backfillTitles("projects", null, null);
+
+        if (persons + items + categories + projects > 0) {
+            log.info("Normalized columns backfilled: persons={}, items={}, item_categories={}, projects={}",
+                    persons, items, categories, projects);
+        }
+    }
+
+    private int backfillPersons() {
+        int total = 0;
+        while (true) {
+            List<Object[]> batch = jdbcTemplate.query("""
+                    select top (%d) id, name, last_name, company_name, tel
+                    from persons
+                    where name_norm is null
+                    order by id
+                    """.formatted(BATCH_SIZE),
+                    (rs, rowNum) -> new Object[]{
+                            TextNormalizer.normalize(rs.getString("name")),
+                            TextNormalizer.normalize(rs.getString("last_name")),
+                            TextNormalizer.normalize(rs.getString("company_name")),
+                            TextNormalizer.normalizePhone(rs.getString("tel")),
+                            rs.getLong("id")
+                    });
+            if (batch.isEmpty()) return total;
+
+            jdbcTemplate.batchUpdate("""
+                    update persons
+                    set name_norm = ?, last_name_norm = ?, company_name_norm = ?, tel_norm = ?
+                    where id = ?
+                    """, batch);
+            total += batch.size();
+            if (batch.size() < BATCH_SIZE) return total;
+        }
+    }
+
+    /**
+     * title -> title_norm, plus an optional second column (items.code).
+     */
+    private int backfillTitles(String table, String extraColumn, String extraNormColumn) {
+        String select = extraColumn == null
+                ? "select top (%d) id, title from %s where title_norm is null order by id".formatted(BATCH_SIZE, table)
+                : "select top (%d) id, title, %s from %s where title_norm is null order by id"
+                        .formatted(BATCH_SIZE, extraColumn, table);
+        String update = extraColumn == null
+                ? "update %s set title_norm = ? where id = ?".formatted(table)
+                : "update %s set title_norm = ?, %s = ? where id = ?".formatted(table, extraNormColumn);
+
+        int total = 0;
+        while (true) {
+            List<Object[]> batch = jdbcTemplate.query(select, (rs, rowNum) -> {
+                List<Object> row = new ArrayList<>(3);
+                row.add(TextNormalizer.normalize(rs.getString("title")));
+                if (extraColumn != null) row.add(TextNormalizer.normalize(rs.getString(extraColumn)));
+                row.add(rs.getLong("id"));
+                return row.toArray();
+            });
+            if (batch.isEmpty()) return total;
+
+            jdbcTemplate.batchUpdate(update, batch);
+            total += batch.size();
+            if (batch.size() < BATCH_SIZE) return total;
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package com.app.service;
+
+import com.app.event.PersonChangedEvent;
+import com.app.util.TextNormalizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index over person name / last name / company name / tel.
+ *
+ * Each person occupies a dense slot; postings are sorted int arrays of slots per
+ * trigram, so a query is an intersection of its rarest postings followed by a
+ * contains() check on the few surviving candidates. Updates append a new slot and
+ * tombstone the old one; the index is compacted once tombstones pile up.
+ * Queries shorter than 3 characters fall back to a linear scan of the slot texts; either way
+ * only the top offset+limit hits are kept (bounded heap) while every hit is counted.
+ * tel is indexed digits only, so a phone-like query is also matched digits only against it.
+ */
+@Component
+public class PersonSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PersonSearchIndex.class);
+
+    private static final char FIELD_SEP = '\u0001';
+    private static final int GRAM = 3;
+    private static final int COMPACT_MIN_TOMBSTONES = 1024;
+
+    private static final int RANK_EXACT = 0;
+    private static final int RANK_FIELD_PREFIX = 1;
+    private static final int RANK_WORD_PREFIX = 2;
+    private static final int RANK_SUBSTRING = 3;
+    private static final int TEL_FIELD = 3;
+    private static final String PHONE_CHARS = "0123456789 -+()./";
+
+    // best first: rank, then id desc
+    private static final Comparator<long[]> HIT_ORDER =
+            (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(b[1], a[1]);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile boolean loaded; // written under the write lock
+    private final AtomicLong updateSeq = new AtomicLong();
+    private final AtomicInteger updatesInFlight = new AtomicInteger();
+
+    // guarded by lock
+    private final Map<Long, Long> appliedSeq = new HashMap<>(); // only while updates overlap
+    private long[] slotIds = new long[0];
+    private String[] slotTexts = new String[0];
+    private int slotCount;
+    private final BitSet dead = new BitSet();
+    private int deadCount;
+    private final Map<Long, Integer> slotOf = new HashMap<>();
+    private final Map<Long, IntList> postings = new HashMap<>();
+
+    public PersonSearchIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            ensureLoaded();
+        } catch (RuntimeException e) {
+            log.warn("Person search index warm-up failed, will load on first search: {}", e.toString());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPersonChanged(PersonChangedEvent event) {
+        if (!loaded) {
+            // a running load may already have scanned past this row: wait for it, then apply
+            lock.writeLock().lock();
+            try {
+                if (!loaded) return; // no load yet; the full load will see the committed row
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        updatesInFlight.incrementAndGet();
+        try {
+            applyUpdate(event, updateSeq.incrementAndGet());
+        } finally {
+            updatesInFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Ranked person ids: exact field match, then field prefix, then word prefix,
+     * then substring; ties by id desc (newest first).
+     */
+    public Result search(String q, int offset, int limit) {
+        String needle = normalize(q);
+        if (needle.isEmpty()) return new Result(List.of(), 0);
+        String phone = phoneNeedle(needle);
+
+        ensureLoaded();
+
+        lock.readLock().lock();
+        try {
+            IntList candidates = candidatesLocked(needle, phone);
+
+            int keep = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+            PriorityQueue<long[]> top = new PriorityQueue<>(HIT_ORDER.reversed()); // {rank, id}, worst on top
+            long total = 0;
+            if (candidates == null) {
+                for (int slot = 0; slot < slotCount; slot++) {
+                    if (!dead.get(slot) && collect(slot, needle, phone, top, keep)) total++;
+                }
+            } else {
+                for (int i = 0; i < candidates.size; i++) {
+                    int slot = candidates.data[i];
+                    if (!dead.get(slot) && collect(slot, needle, phone, top, keep)) total++;
+                }
+            }
+
+            List<long[]> hits = new ArrayList<>(top);
+            hits.sort(HIT_ORDER);
+
+            int from = Math.min(offset, hits.size());
+            int to = Math.min(hits.size(), from + limit);
+            List<Long> ids = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) ids.add(hits.get(i)[1]);
+            return new Result(ids, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ---------------- internals ----------------
+
+    private void applyUpdate(PersonChangedEvent event, long seq) {
+        // read before locking: searches wait for the postings swap only, not for the database
+        String text = null;
+        if (!event.deleted()) {
+            List<String> texts = jdbcTemplate.query("""
+                    select id, name, last_name, company_name, tel
+                    from persons
+                    where id = ?
+                    """, (rs, rowNum) -> text(rs.getString("name"), rs.getString("last_name"),
+                    rs.getString("company_name"), rs.getString("tel")), event.personId());
+            if (!texts.isEmpty()) text = texts.get(0);
+        }
+
+        lock.writeLock().lock();
+        try {
+            // a handler that started later for the same person read a row at least as new
+            Long applied = appliedSeq.get(event.personId());
+            if (applied != null && applied > seq) return;
+            appliedSeq.put(event.personId(), seq);
+
+            removeLocked(event.personId());
+            if (text != null) addLocked(event.personId(), text);
+            if (deadCount >= COMPACT_MIN_TOMBSTONES && deadCount * 4 > slotCount) {
+                compactLocked();
+            }
+
+            // no other handler has a row in hand: every later one gets a higher seq anyway
+            if (updatesInFlight.get() == 1) appliedSeq.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureLoaded() {
+        lock.readLock().lock();
+        try {
+            if (loaded) return;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (loaded) return;
+            long start = System.nanoTime();
+            jdbcTemplate.query("""
+                    select id, name, last_name, company_name, tel
+                    from persons
+                    order by id
+                    """, (RowCallbackHandler) rs -> addLocked(rs.getLong("id"),
+                    text(rs.getString("name"), rs.getString("last_name"),
+                            rs.getString("company_name"), rs.getString("tel"))));
+            loaded = true;
+            log.info("Person search index loaded: {} persons, {} trigrams in {} ms",
+                    slotOf.size(), postings.size(), (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Slots that may match the name needle or (on tel) the phone needle; null means scan all.
+     */
+    private IntList candidatesLocked(String needle, String phone) {
+        if (needle.length() < GRAM || (!phone.isEmpty() && phone.length() < GRAM)) return null;
+        IntList candidates = gramCandidatesLocked(needle);
+        if (!phone.isEmpty() && !phone.equals(needle)) candidates = union(candidates, gramCandidatesLocked(phone));
+        return candidates;
+    }
+
+    private IntList gramCandidatesLocked(String needle) {
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= needle.length(); i++) {
+            grams.add(gramKey(needle, i));
+        }
+
+        List<IntList> lists = new ArrayList<>(grams.size());
+        for (Long g : grams) {
+            IntList p = postings.get(g);
+            if (p == null) return new IntList(0); // some trigram never occurs: no match
+            lists.add(p);
+        }
+        lists.sort(Comparator.comparingInt(l -> l.size));
+
+        IntList acc = lists.get(0);
+        for (int i = 1; i < lists.size() && acc.size > 0; i++) {
+            acc = intersect(acc, lists.get(i));
+        }
+        return acc;
+    }
+
+    /**
+     * true when the slot matches; it is kept only if it ranks among the best {@code keep} so far.
+     */
+    private boolean collect(int slot, String needle, String phone, PriorityQueue<long[]> top, int keep) {
+        int rank = rank(slotTexts[slot], needle, phone);
+        if (rank < 0) return false;
+        if (keep == 0) return true;
+
+        long id = slotIds[slot];
+        if (top.size() == keep) {
+            long[] worst = top.peek();
+            if (rank > worst[0] || (rank == worst[0] && id < worst[1])) return true;
+            top.poll();
+        }
+        top.add(new long[]{rank, id});
+        return true;
+    }
+
+    private int rank(String text, String needle, String phone) {
+        int best = -1;
+        int start = 0;
+        for (int fieldIndex = 0; start <= text.length(); fieldIndex++) {
+            int end = text.indexOf(FIELD_SEP, start);
+            if (end < 0) end = text.length();
+            String field = text.substring(start, end);
+            if (fieldIndex == TEL_FIELD && !phone.isEmpty()) needle = phone;
+
+            int r = -1;
+            if (field.equals(needle)) r = RANK_EXACT;
+            else if (field.startsWith(needle)) r = RANK_FIELD_PREFIX;
+            else {
+                int at = field.indexOf(needle);
+                if (at > 0) r = Character.isWhitespace(field.charAt(at - 1)) ? RANK_WORD_PREFIX : RANK_SUBSTRING;
+            }
+            if (r >= 0 && (best < 0 || r < best)) best = r;
+            if (best == RANK_EXACT) break;
+
+            start = end + 1;
+        }
+        return best;
+    }
+
+    private void addLocked(long id, String text) {
+        if (slotCount == slotIds.length) {
+            int cap = Math.max(1024, slotCount * 2);
+            slotIds = Arrays.copyOf(slotIds, cap);
+            slotTexts = Arrays.copyOf(slotTexts, cap);
+        }
+        int slot = slotCount++;
+        slotIds[slot] = id;
+        slotTexts[slot] = text;
+        slotOf.put(id, slot);
+
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            int sep = text.indexOf(FIELD_SEP, i);
+            if (sep >= 0 && sep < i + GRAM) continue; // don't index grams spanning two fields
+            long g = gramKey(text, i);
+            // slots only grow, so every posting list stays sorted
+            if (seen.add(g)) postings.computeIfAbsent(g, k -> new IntList(4)).add(slot);
+        }
+    }
+
+    private void removeLocked(long id) {
+        Integer slot = slotOf.remove(id);
+        if (slot != null && !dead.get(slot)) {
+            dead.set(slot);
+            slotTexts[slot] = null;
+            deadCount++;
+        }
+    }
+
+    private void compactLocked() {
+        long[] ids = slotIds;
+        String[] texts = slotTexts;
+        int n = slotCount;
+        BitSet wasDead = (BitSet) dead.clone();
+
+        slotIds = new long[Math.max(1024, n - deadCount)];
+        slotTexts = new String[slotIds.length];
+        slotCount = 0;
+        dead.clear();
+        deadCount = 0;
+        slotOf.clear();
+        postings.clear();
+
+        for (int slot = 0; slot < n; slot++) {
+            if (!wasDead.get(slot)) addLocked(ids[slot], texts[slot]);
+        }
+        log.debug("Person search index compacted to {} slots", slotCount);
+    }
+
+    private static IntList union(IntList a, IntList b) {
+        IntList out = new IntList(a.size + b.size);
+        int i = 0, j = 0;
+        while (i < a.size || j < b.size) {
+            if (j == b.size || (i < a.size && a.data[i] < b.data[j])) out.add(a.data[i++]);
+            else if (i == a.size || b.data[j] < a.data[i]) out.add(b.data[j++]);
+            else {
+                out.add(a.data[i++]);
+                j++;
+            }
+        }
+        return out;
+    }
+
+    private static IntList intersect(IntList a, IntList b) {
+        IntList out = new IntList(Math.min(a.size, b.size));
+        int i = 0, j = 0;
+        while (i < a.size && j < b.size) {
+            int x = a.data[i], y = b.data[j];
+            if (x == y) {
+                out.add(x);
+                i++;
+                j++;
+            } else if (x < y) i++;
+            else j++;
+        }
+        return out;
+    }
+
+    private static long gramKey(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    private static String text(String name, String lastName, String companyName, String tel) {
+        return normalize(name) + FIELD_SEP + normalize(lastName) + FIELD_SEP
+                + normalize(companyName) + FIELD_SEP + TextNormalizer.normalizePhone(tel);
+    }
+
+    static String normalize(String s) {
+        return TextNormalizer.normalize(s).replace(FIELD_SEP, ' ');
+    }
+
+    /**
+     * Digits of a query made of digits and phone separators only (e.g. "0912-345"), else "".
+     */
+    static String phoneNeedle(String needle) {
+        for (int i = 0; i < needle.length(); i++) {
+            if (PHONE_CHARS.indexOf(needle.charAt(i)) < 0) return "";
+        }
+        return TextNormalizer.normalizePhone(needle);
+    }
+
+    public record Result(List<Long> ids, long total) {}
+
+    private static final class IntList {
+        int[] data;
+        int size;
+
+        IntList(int capacity) {
+            data = new int[Math.max(capacity, 1)];
+        }
+
+        void add(int v) {
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = v;
+        }
+    }
+}
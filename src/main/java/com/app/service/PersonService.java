@@ -1,27 +1,41 @@
 package com.app.service;
 
+import com.app.dto.common.CursorPage;
 import com.app.dto.person.PersonCreateRequest;
 import com.app.dto.person.PersonResponse;
 import com.app.dto.person.PersonUpdateRequest;
+import com.app.event.PersonChangedEvent;
 import com.app.model.Person;
 import com.app.repository.PersonRepository;
+import com.app.util.TextNormalizer;
+import io.micrometer.observation.annotation.Observed;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.*;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Objects;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
 
 @Service
+@Observed(name = "app.service")
 public class PersonService {
 
     private final PersonRepository personRepository;
     private final JdbcTemplate jdbcTemplate;
+    private final PersonSearchIndex personSearchIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public PersonService(PersonRepository personRepository, JdbcTemplate jdbcTemplate) {
+    public PersonService(PersonRepository personRepository,
+                         JdbcTemplate jdbcTemplate,
+                         PersonSearchIndex personSearchIndex,
+                         ApplicationEventPublisher eventPublisher) {
         this.personRepository = personRepository;
         this.jdbcTemplate = jdbcTemplate;
+        this.personSearchIndex = personSearchIndex;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
@@ -32,11 +46,11 @@ public class PersonService {
 
         if (Boolean.TRUE.equals(req.isLegal())) {
             String company = req.companyName().trim();
-            if (personRepository.existsByIsLegalTrueAndCompanyNameIgnoreCase(company)) {
+            if (personRepository.existsByIsLegalTrueAndCompanyNameNorm(TextNormalizer.normalize(company))) {
                 throw new IllegalArgumentException("این شرکت/سازمان قبلاً ثبت شده است.");
             }
         } else {
-            if (personRepository.existsNatural(req.name(), req.lastName())) {
+            if (personRepository.existsNatural(TextNormalizer.normalize(req.name()), TextNormalizer.normalize(req.lastName()))) {
                 throw new IllegalArgumentException("این شخص قبلاً ثبت شده است.");
             }
         }
@@ -46,6 +60,7 @@ public class PersonService {
 
         try {
             Person saved = personRepository.save(p);
+            eventPublisher.publishEvent(new PersonChangedEvent(saved.getId(), false));
             return toResponse(saved);
         } catch (DataIntegrityViolationException e) {
             throw new IllegalArgumentException("ثبت شخص انجام نشد. لطفاً اطلاعات را بررسی کنید.");
@@ -54,7 +69,7 @@ public class PersonService {
 
     @Transactional(readOnly = true)
     public Page<PersonResponse> getAll(Pageable pageable) {
-        return personRepository.findAll(pageable).map(this::toResponse);
+        return personRepository.findAll(pageable).map(PersonService::toResponse);
     }
 
     @Transactional(readOnly = true)
@@ -77,11 +92,11 @@ public class PersonService {
 
         if (Boolean.TRUE.equals(req.isLegal())) {
             String company = req.companyName().trim();
-            if (personRepository.existsByIsLegalTrueAndCompanyNameIgnoreCaseAndIdNot(company, id)) {
+            if (personRepository.existsByIsLegalTrueAndCompanyNameNormAndIdNot(TextNormalizer.normalize(company), id)) {
                 throw new IllegalArgumentException("این شرکت/سازمان قبلاً ثبت شده است.");
             }
         } else {
-            if (personRepository.existsNaturalExcludingId(req.name(), req.lastName(), id)) {
+            if (personRepository.existsNaturalExcludingId(TextNormalizer.normalize(req.name()), TextNormalizer.normalize(req.lastName()), id)) {
                 throw new IllegalArgumentException("این شخص قبلاً ثبت شده است.");
             }
         }
@@ -90,6 +105,7 @@ public class PersonService {
 
         try {
             Person saved = personRepository.save(p);
+            eventPublisher.publishEvent(new PersonChangedEvent(saved.getId(), false));
             return toResponse(saved);
         } catch (DataIntegrityViolationException e) {
             throw new IllegalArgumentException("ویرایش شخص انجام نشد. لطفاً اطلاعات را بررسی کنید.");
@@ -108,11 +124,99 @@ public class PersonService {
         }
 
         personRepository.delete(p);
+        eventPublisher.publishEvent(new PersonChangedEvent(id, true));
     }
 
+    /**
+     * Ranked typeahead from the in-memory index; only the requested page is loaded from the DB.
+     */
     @Transactional(readOnly = true)
     public Page<PersonResponse> search(String q, Pageable pageable) {
-        return personRepository.search(q, pageable).map(this::toResponse);
+        if (q == null || q.isBlank()) {
+            return personRepository.findAll(pageable).map(PersonService::toResponse);
+        }
+
+        PersonSearchIndex.Result hits = personSearchIndex.search(q, (int) pageable.getOffset(), pageable.getPageSize());
+
+        Map<Long, Person> byId = new HashMap<>();
+        for (Person p : personRepository.findAllById(hits.ids())) byId.put(p.getId(), p);
+
+        List<PersonResponse> content = new ArrayList<>(hits.ids().size());
+        for (Long id : hits.ids()) {
+            Person p = byId.get(id);
+            if (p != null) content.add(toResponse(p));
+        }
+        return new PageImpl<>(content, pageable, hits.total());
+    }
+
+    /**
+     * Keyset listing ordered by (display_name_norm, id): each page is an index seek from the
+     * cursor instead of OFFSET n ROWS, and the count(*) runs only when withTotal is set.
+     * q (optional) filters by prefix on the normalized name / last name / company / tel.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<PersonResponse> seek(String q, String cursor, int size, boolean withTotal) {
+        if (size <= 0 || size > 200) throw new IllegalArgumentException("اندازه صفحه باید بین ۱ و ۲۰۰ باشد.");
+
+        StringBuilder where = new StringBuilder(" where 1 = 1 ");
+        List<Object> filterArgs = new ArrayList<>();
+        String needle = TextNormalizer.normalize(q);
+        if (!needle.isEmpty()) {
+            String like = likePrefix(needle);
+            where.append(" and (name_norm like ? or last_name_norm like ? or company_name_norm like ?");
+            filterArgs.add(like);
+            filterArgs.add(like);
+            filterArgs.add(like);
+            String tel = TextNormalizer.normalizePhone(q);
+            if (!tel.isEmpty()) {
+                where.append(" or tel_norm like ?");
+                filterArgs.add(likePrefix(tel));
+            }
+            where.append(") ");
+        }
+
+        StringBuilder sql = new StringBuilder("""
+                select top (?) id, name, last_name, company_name, address, tel, is_legal, dsc, display_name_norm
+                from persons
+                """).append(where);
+        List<Object> args = new ArrayList<>();
+        args.add(size + 1);
+        args.addAll(filterArgs);
+
+        if (cursor != null && !cursor.isBlank()) {
+            SeekKey after = decodeCursor(cursor);
+            sql.append(" and (display_name_norm > ? or (display_name_norm = ? and id > ?)) ");
+            args.add(after.displayName());
+            args.add(after.displayName());
+            args.add(after.id());
+        }
+        sql.append(" order by display_name_norm asc, id asc ");
+
+        List<SeekKey> keys = new ArrayList<>(size + 1);
+        List<PersonResponse> rows = jdbcTemplate.query(sql.toString(), (rs, rowNum) -> {
+            keys.add(new SeekKey(rs.getString("display_name_norm"), rs.getLong("id")));
+            return new PersonResponse(
+                    rs.getLong("id"),
+                    rs.getString("name"),
+                    rs.getString("last_name"),
+                    rs.getString("company_name"),
+                    rs.getString("address"),
+                    rs.getString("tel"),
+                    rs.getBoolean("is_legal"),
+                    rs.getString("dsc")
+            );
+        }, args.toArray());
+
+        boolean hasNext = rows.size() > size;
+        List<PersonResponse> content = hasNext ? rows.subList(0, size) : rows;
+        String next = hasNext ? encodeCursor(keys.get(size - 1)) : null;
+
+        Long total = null;
+        if (withTotal) {
+            total = jdbcTemplate.queryForObject("select count_big(*) from persons " + where,
+                    Long.class, filterArgs.toArray());
+        }
+        return new CursorPage<>(List.copyOf(content), size, next, hasNext, total);
     }
 
     private boolean isPersonReferenced(Long personId) {
@@ -174,7 +278,7 @@ public class PersonService {
         return t.isEmpty() ? null : t;
     }
 
-    private PersonResponse toResponse(Person p) {
+    static PersonResponse toResponse(Person p) {
         return new PersonResponse(
                 p.getId(),
                 p.getName(),
@@ -186,4 +290,27 @@ public class PersonService {
                 p.getDsc()
         );
     }
+
+    private static String likePrefix(String s) {
+        // SQL Server LIKE: bracket the wildcard characters
+        return s.replace("[", "[[]").replace("%", "[%]").replace("_", "[_]") + "%";
+    }
+
+    private static String encodeCursor(SeekKey key) {
+        String raw = key.id() + "|" + key.displayName();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static SeekKey decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            if (sep <= 0) throw new IllegalArgumentException();
+            return new SeekKey(raw.substring(sep + 1), Long.parseLong(raw.substring(0, sep)));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("نشانگر صفحه (cursor) نامعتبر است.");
+        }
+    }
+
+    private record SeekKey(String displayName, long id) {}
 }
@@ -0,0 +1,172 @@
+package com.app.service;
+
+import com.app.dto.project.ProjectRollupNode;
+import com.app.dto.project.ProjectTreeNode;
+import com.app.enums.ReferenceTable;
+import com.app.event.FinancialDataChangedEvent;
+import com.app.event.ProjectsChangedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Financial totals per project, rolled up over the project tree.
+ * Two grouped queries (transactions, debts + covered) give per-project figures;
+ * subtree totals are then summed bottom-up over the cached tree in O(n).
+ * The result is cached until the next committed financial or project change.
+ */
+@Service
+public class ProjectRollupService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProjectTreeCache projectTreeCache;
+    private final ObjectMapper objectMapper;
+    private final DataVersionService dataVersionService;
+
+    private final AtomicReference<Rollup> current = new AtomicReference<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    public ProjectRollupService(JdbcTemplate jdbcTemplate, ProjectTreeCache projectTreeCache, ObjectMapper objectMapper,
+                                DataVersionService dataVersionService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.projectTreeCache = projectTreeCache;
+        this.objectMapper = objectMapper;
+        this.dataVersionService = dataVersionService;
+    }
+
+    public Rollup getRollup() {
+        Rollup r = current.get();
+        if (r != null) return r;
+
+        long gen = generation.get();
+        Rollup computed = compute();
+        // a write committed while computing: serve this result, but don't cache it
+        if (generation.get() == gen) current.compareAndSet(null, computed);
+        return computed;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFinancialDataChanged(FinancialDataChangedEvent event) {
+        invalidate();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProjectsChanged(ProjectsChangedEvent event) {
+        invalidate();
+    }
+
+    private void invalidate() {
+        generation.incrementAndGet();
+        current.set(null);
+    }
+
+    private Rollup compute() {
+        // the tree cache's own after-commit rebuild may not have run yet: ask for at least
+        // the committed version so a rollup over the old tree is never cached
+        long version = dataVersionService.current(ReferenceTable.PROJECTS);
+        ProjectTreeCache.Snapshot tree = projectTreeCache.snapshot(version);
+
+        Map<Long, BigDecimal> paid = new HashMap<>();
+        jdbcTemplate.query("""
+                select project_id, coalesce(sum(amount_paid), 0) as total_paid
+                from transactions
+                group by project_id
+                """, (RowCallbackHandler) rs -> paid.put(rs.getLong("project_id"), rs.getBigDecimal("total_paid")));
+
+        Map<Long, BigDecimal[]> debts = new HashMap<>();
+        jdbcTemplate.query("""
+                select dh.project_id,
+                       coalesce(sum(d.total), 0) as total_debt,
+                       coalesce(sum(tt.covered), 0) as covered
+                from debts_header dh
+                left join (
+                    select debt_header_id, sum(cast(qnt as decimal(18,3)) * cast(unit_price as decimal(18,0))) as total
+                    from debts_detail
+                    group by debt_header_id
+                ) d on d.debt_header_id = dh.id
+                left join (
+                    select debt_header_id, sum(covered_amount) as covered
+                    from transaction_tracks
+                    group by debt_header_id
+                ) tt on tt.debt_header_id = dh.id
+                group by dh.project_id
+                """, (RowCallbackHandler) rs -> debts.put(rs.getLong("project_id"),
+                new BigDecimal[]{rs.getBigDecimal("total_debt"), rs.getBigDecimal("covered")}));
+
+        // pre-order walk: every parent lands in the list before its children
+        List<ProjectRollupNode> order = new ArrayList<>(tree.byId().size());
+        Map<Long, ProjectRollupNode> byId = new HashMap<>(tree.byId().size() * 2);
+        List<ProjectRollupNode> roots = new ArrayList<>();
+
+        Deque<ProjectTreeNode> stack = new ArrayDeque<>();
+        for (int i = tree.roots().size() - 1; i >= 0; i--) stack.push(tree.roots().get(i));
+
+        while (!stack.isEmpty()) {
+            ProjectTreeNode t = stack.pop();
+            ProjectRollupNode n = new ProjectRollupNode(t.id, t.parentId, t.title);
+
+            n.ownPaid = paid.getOrDefault(t.id, BigDecimal.ZERO);
+            BigDecimal[] d = debts.get(t.id);
+            if (d != null) {
+                n.ownDebt = d[0];
+                n.ownCovered = d[1];
+            }
+            n.ownRemaining = n.ownDebt.subtract(n.ownCovered);
+
+            n.totalPaid = n.ownPaid;
+            n.totalDebt = n.ownDebt;
+            n.totalCovered = n.ownCovered;
+
+            ProjectRollupNode parent = t.parentId == null ? null : byId.get(t.parentId);
+            if (parent == null) roots.add(n);
+            else parent.children.add(n);
+
+            byId.put(t.id, n);
+            order.add(n);
+
+            for (int i = t.children.size() - 1; i >= 0; i--) stack.push(t.children.get(i));
+        }
+
+        // reverse pre-order = children before parents: one pass adds each subtree into its parent
+        for (int i = order.size() - 1; i >= 0; i--) {
+            ProjectRollupNode n = order.get(i);
+            n.totalRemaining = n.totalDebt.subtract(n.totalCovered);
+
+            ProjectRollupNode parent = n.parentId == null ? null : byId.get(n.parentId);
+            if (parent != null) {
+                parent.totalPaid = parent.totalPaid.add(n.totalPaid);
+                parent.totalDebt = parent.totalDebt.add(n.totalDebt);
+                parent.totalCovered = parent.totalCovered.add(n.totalCovered);
+            }
+        }
+
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(roots);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("سریال‌سازی جمع‌بندی مالی پروژه‌ها انجام نشد.", e);
+        }
+        return new Rollup(Collections.unmodifiableList(roots), json, etag(json));
+    }
+
+    private String etag(byte[] json) {
+        try {
+            byte[] d = MessageDigest.getInstance("SHA-256").digest(json);
+            return "\"" + HexFormat.of().formatHex(d, 0, 12) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record Rollup(List<ProjectRollupNode> roots, byte[] json, String etag) {}
+}
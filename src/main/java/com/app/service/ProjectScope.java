@@ -0,0 +1,16 @@
+package com.app.service;
+
+/**
+ * SQL predicate for "this project" or "this project and all its subprojects"
+ * (via project_closure). Both forms bind exactly one parameter: the project id.
+ */
+final class ProjectScope {
+
+    private ProjectScope() {}
+
+    static String predicate(String column, boolean includeSubprojects) {
+        return includeSubprojects
+                ? column + " in (select pc.descendant from project_closure pc where pc.ancestor = ?)"
+                : column + " = ?";
+    }
+}
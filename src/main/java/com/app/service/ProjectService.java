@@ -1,8 +1,12 @@
 package com.app.service;
 
 import com.app.dto.project.*;
+import com.app.event.ProjectsChangedEvent;
 import com.app.model.Project;
 import com.app.repository.ProjectRepository;
+import com.app.util.TextNormalizer;
+import io.micrometer.observation.annotation.Observed;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -10,14 +14,22 @@ import org.springframework.transaction.annotation.Transactional;
 import java.util.*;
 
 @Service
+@Observed(name = "app.service")
 public class ProjectService {
 
     private final ProjectRepository projectRepository;
     private final JdbcTemplate jdbcTemplate;
+    private final ProjectTreeCache projectTreeCache;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public ProjectService(ProjectRepository projectRepository, JdbcTemplate jdbcTemplate) {
+    public ProjectService(ProjectRepository projectRepository,
+                          JdbcTemplate jdbcTemplate,
+                          ProjectTreeCache projectTreeCache,
+                          ApplicationEventPublisher eventPublisher) {
         this.projectRepository = projectRepository;
         this.jdbcTemplate = jdbcTemplate;
+        this.projectTreeCache = projectTreeCache;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
@@ -27,7 +39,7 @@ public class ProjectService {
         String title = trimToNull(req.title());
         if (title == null) throw new IllegalArgumentException("عنوان پروژه الزامی است.");
 
-        if (projectRepository.existsByTitleIgnoreCase(title)) {
+        if (projectRepository.existsByTitleNorm(TextNormalizer.normalize(title))) {
             throw new IllegalArgumentException("این عنوان پروژه قبلاً ثبت شده است: " + title);
         }
 
@@ -38,7 +50,10 @@ public class ProjectService {
         p.setDsc(trimToNull(req.dsc()));
         p.setParent(parent);
 
-        return toResponse(projectRepository.save(p));
+        Project saved = projectRepository.save(p);
+        insertClosure(saved.getId(), parent == null ? null : parent.getId());
+        eventPublisher.publishEvent(new ProjectsChangedEvent(saved.getId()));
+        return toResponse(saved);
     }
 
     @Transactional(readOnly = true)
@@ -66,17 +81,24 @@ public class ProjectService {
         String title = trimToNull(req.title());
         if (title == null) throw new IllegalArgumentException("عنوان پروژه الزامی است.");
 
-        if (projectRepository.existsByTitleIgnoreCaseAndIdNot(title, id)) {
+        if (projectRepository.existsByTitleNormAndIdNot(TextNormalizer.normalize(title), id)) {
             throw new IllegalArgumentException("این عنوان پروژه قبلاً ثبت شده است: " + title);
         }
 
         Project parent = resolveParent(req.parentId(), id);
+        Long oldParentId = (p.getParent() == null ? null : p.getParent().getId());
+        Long newParentId = (parent == null ? null : parent.getId());
 
         p.setTitle(title);
         p.setDsc(trimToNull(req.dsc()));
         p.setParent(parent);
 
-        return toResponse(projectRepository.save(p));
+        Project saved = projectRepository.save(p);
+        if (!Objects.equals(oldParentId, newParentId)) {
+            moveClosure(id, newParentId);
+        }
+        eventPublisher.publishEvent(new ProjectsChangedEvent(saved.getId()));
+        return toResponse(saved);
     }
 
     @Transactional
@@ -94,32 +116,20 @@ public class ProjectService {
             throw new IllegalArgumentException("امکان حذف پروژه وجود ندارد؛ برای این پروژه پرداخت یا بدهی ثبت شده است.");
         }
 
+        // leaf only (checked above): just its own rows
+        jdbcTemplate.update("delete from project_closure where descendant = ?", id);
+        // no transactions or debts left, so no attachments either; the row may still exist at 0
+        jdbcTemplate.update("delete from project_document_usage where project_id = ?", id);
         projectRepository.delete(p);
+        eventPublisher.publishEvent(new ProjectsChangedEvent(id));
     }
 
-    @Transactional(readOnly = true)
     public List<ProjectTreeNode> getTree() {
-        List<Project> all = projectRepository.findAll();
-
-        Map<Long, ProjectTreeNode> map = new HashMap<>();
-        List<ProjectTreeNode> roots = new ArrayList<>();
-
-        for (Project p : all) {
-            Long parentId = (p.getParent() == null ? null : p.getParent().getId());
-            map.put(p.getId(), new ProjectTreeNode(p.getId(), parentId, p.getTitle(), p.getDsc()));
-        }
-
-        for (Project p : all) {
-            ProjectTreeNode node = map.get(p.getId());
-            if (node.parentId == null) roots.add(node);
-            else {
-                ProjectTreeNode parent = map.get(node.parentId);
-                if (parent != null) parent.children.add(node);
-                else roots.add(node);
-            }
-        }
+        return projectTreeCache.snapshot().roots();
+    }
 
-        return roots;
+    public ProjectTreeCache.Snapshot getTreeSnapshot() {
+        return projectTreeCache.snapshot();
     }
 
     private Project resolveParent(Long parentId, Long selfId) {
@@ -132,20 +142,57 @@ public class ProjectService {
         Project parent = projectRepository.findById(parentId)
                 .orElseThrow(() -> new IllegalArgumentException("پروژه والد یافت نشد. (شناسه: " + parentId + ")"));
 
-        if (selfId != null && createsCycle(selfId, parent)) {
+        if (selfId != null && isDescendant(parentId, selfId)) {
             throw new IllegalArgumentException("انتخاب والد نامعتبر است؛ باعث ایجاد چرخه می‌شود.");
         }
 
         return parent;
     }
 
-    private boolean createsCycle(Long selfId, Project newParent) {
-        Project cur = newParent;
-        while (cur != null) {
-            if (selfId.equals(cur.getId())) return true;
-            cur = cur.getParent();
+    // ---------------- closure table ----------------
+
+    private boolean isDescendant(Long candidate, Long ancestor) {
+        Integer n = jdbcTemplate.queryForObject(
+                "select count(1) from project_closure where ancestor = ? and descendant = ?",
+                Integer.class, ancestor, candidate
+        );
+        return n != null && n > 0;
+    }
+
+    private void insertClosure(Long id, Long parentId) {
+        jdbcTemplate.update("insert into project_closure (ancestor, descendant, depth) values (?, ?, 0)", id, id);
+        if (parentId != null) {
+            jdbcTemplate.update("""
+                    insert into project_closure (ancestor, descendant, depth)
+                    select ancestor, ?, depth + 1
+                    from project_closure
+                    where descendant = ?
+                    """, id, parentId);
+        }
+    }
+
+    /**
+     * Re-links the whole subtree of id under newParentId: drop the paths from the
+     * old ancestors into the subtree, then cross-join the new ancestors with it.
+     */
+    private void moveClosure(Long id, Long newParentId) {
+        jdbcTemplate.update("""
+                delete c
+                from project_closure c
+                where c.descendant in (select descendant from project_closure where ancestor = ?)
+                  and c.ancestor not in (select descendant from project_closure where ancestor = ?)
+                """, id, id);
+
+        if (newParentId != null) {
+            jdbcTemplate.update("""
+                    insert into project_closure (ancestor, descendant, depth)
+                    select sup.ancestor, sub.descendant, sup.depth + sub.depth + 1
+                    from project_closure sup
+                    cross join project_closure sub
+                    where sup.descendant = ?
+                      and sub.ancestor = ?
+                    """, newParentId, id);
         }
-        return false;
     }
 
     private boolean isProjectReferenced(Long projectId) {
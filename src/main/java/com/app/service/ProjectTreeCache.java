@@ -0,0 +1,162 @@
+package com.app.service;
+
+import com.app.dto.project.ProjectTreeNode;
+import com.app.enums.ReferenceTable;
+import com.app.event.ProjectsChangedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Immutable in-memory snapshot of the project tree, built from one flat
+ * (id, parent_id, title, dsc) query and swapped atomically after every
+ * committed project change. The JSON body and its ETag are computed once per
+ * snapshot, so GET /projects/tree does no DB work and no serialization.
+ *
+ * Each snapshot carries the data_versions counter read before its rows, so callers
+ * that need a given version (bootstrap) can tell when this instance is behind, and a
+ * periodic check of the counter picks up changes committed on other instances.
+ */
+@Component
+public class ProjectTreeCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ProjectTreeCache.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final DataVersionService dataVersionService;
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    private final Lock rebuildLock = new ReentrantLock();
+
+    public ProjectTreeCache(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, DataVersionService dataVersionService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.dataVersionService = dataVersionService;
+    }
+
+    public Snapshot snapshot() {
+        Snapshot s = current.get();
+        return s != null ? s : rebuild();
+    }
+
+    /**
+     * A snapshot at least as new as minVersion: rebuilt when the change was committed
+     * elsewhere, or its after-commit rebuild hasn't run yet.
+     */
+    public Snapshot snapshot(long minVersion) {
+        Snapshot s = current.get();
+        return s != null && s.version() >= minVersion ? s : rebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProjectsChanged(ProjectsChangedEvent event) {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            // drop the stale snapshot; the next read rebuilds it
+            current.set(null);
+            log.warn("Project tree rebuild failed after change of project {}: {}", event.projectId(), e.toString());
+        }
+    }
+
+    /**
+     * One single-row read per interval; rebuilds only when another instance committed a change.
+     */
+    @Scheduled(fixedDelayString = "${app.reference.version-check-ms:30000}",
+            initialDelayString = "${app.reference.version-check-ms:30000}")
+    public void checkVersion() {
+        Snapshot s = current.get();
+        if (s == null) return; // nothing cached; the next read builds it
+        try {
+            if (dataVersionService.current(ReferenceTable.PROJECTS) > s.version()) rebuild();
+        } catch (RuntimeException e) {
+            log.warn("Project tree version check failed, will retry: {}", e.toString());
+        }
+    }
+
+    /**
+     * Serialized so a rebuild that started before a later commit can never overwrite a newer snapshot.
+     * A lock rather than a monitor: the query would otherwise pin a virtual thread to its carrier.
+     */
+    public Snapshot rebuild() {
+        rebuildLock.lock();
+        try {
+            long version = dataVersionService.current(ReferenceTable.PROJECTS);
+            List<Row> rows = jdbcTemplate.query("""
+                    select id, parent_id, title, dsc
+                    from projects
+                    order by id
+                    """, (rs, rowNum) -> new Row(
+                    rs.getLong("id"),
+                    rs.getObject("parent_id", Long.class),
+                    rs.getString("title"),
+                    rs.getString("dsc")
+            ));
+
+            Snapshot s = build(rows, version);
+            current.set(s);
+            return s;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    Snapshot build(List<Row> rows, long version) {
+        Map<Long, ProjectTreeNode> byId = new HashMap<>(rows.size() * 2);
+        Map<Long, List<ProjectTreeNode>> childrenOf = new HashMap<>();
+        List<ProjectTreeNode> roots = new ArrayList<>();
+
+        for (Row r : rows) {
+            byId.put(r.id(), new ProjectTreeNode(r.id(), r.parentId(), r.title(), r.dsc()));
+        }
+        for (Row r : rows) {
+            ProjectTreeNode node = byId.get(r.id());
+            if (r.parentId() == null || !byId.containsKey(r.parentId())) roots.add(node);
+            else childrenOf.computeIfAbsent(r.parentId(), k -> new ArrayList<>()).add(node);
+        }
+        // freeze: nodes are shared by every reader of this snapshot
+        for (ProjectTreeNode node : byId.values()) {
+            List<ProjectTreeNode> children = childrenOf.get(node.id);
+            node.children = children == null ? List.of() : Collections.unmodifiableList(children);
+        }
+
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(roots);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("سریال‌سازی درخت پروژه انجام نشد.", e);
+        }
+
+        return new Snapshot(Collections.unmodifiableList(roots), Collections.unmodifiableMap(byId), json, etag(json), version);
+    }
+
+    private String etag(byte[] json) {
+        try {
+            byte[] d = MessageDigest.getInstance("SHA-256").digest(json);
+            return "\"" + HexFormat.of().formatHex(d, 0, 12) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record Snapshot(List<ProjectTreeNode> roots,
+                           Map<Long, ProjectTreeNode> byId,
+                           byte[] json,
+                           String etag,
+                           long version) {}
+
+    record Row(long id, Long parentId, String title, String dsc) {}
+}
@@ -1,8 +1,14 @@
 package com.app.service;
 
 import com.app.dto.transaction.*;
+import com.app.enums.DocumentOwnerType;
+import com.app.event.EntitiesUsedEvent;
+import com.app.event.FinancialDataChangedEvent;
 import com.app.model.*;
 import com.app.repository.*;
+import com.app.util.QueryMetrics;
+import io.micrometer.observation.annotation.Observed;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -11,23 +17,34 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.stream.Stream;
 
 @Service
+@Observed(name = "app.service")
 public class TransactionService {
 
     private final TransactionRepository transactionRepository;
     private final ProjectRepository projectRepository;
     private final PersonRepository personRepository;
     private final JdbcTemplate jdbcTemplate;
+    private final DocumentService documentService;
+    private final QueryMetrics queryMetrics;
+    private final ApplicationEventPublisher eventPublisher;
 
     public TransactionService(TransactionRepository transactionRepository,
                               ProjectRepository projectRepository,
                               PersonRepository personRepository,
-                              JdbcTemplate jdbcTemplate) {
+                              JdbcTemplate jdbcTemplate,
+                              DocumentService documentService,
+                              QueryMetrics queryMetrics,
+                              ApplicationEventPublisher eventPublisher) {
         this.transactionRepository = transactionRepository;
         this.projectRepository = projectRepository;
         this.personRepository = personRepository;
         this.jdbcTemplate = jdbcTemplate;
+        this.documentService = documentService;
+        this.queryMetrics = queryMetrics;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
@@ -40,9 +57,12 @@ public class TransactionService {
         apply(t, req.projectId(), req.fromPersonId(), req.toPersonId(),
                 req.code(), req.dateDue(), req.amountPaid(),
                 req.paymentType(), req.transactionType(), req.dateRegistered(), req.dsc());
-
         Transaction saved = transactionRepository.save(t);
 
+        eventPublisher.publishEvent(new FinancialDataChangedEvent("transactions"));
+        eventPublisher.publishEvent(new EntitiesUsedEvent(
+                List.of(req.fromPersonId(), req.toPersonId()), List.of(), List.of()));
+
         BigDecimal allocated = getAllocatedForTransaction(saved.getId());
         return toResponse(saved, allocated);
     }
@@ -82,11 +102,21 @@ public class TransactionService {
                 req.code(), req.amountPaid(), req.paymentType(), req.transactionType(),
                 req.dateDue(), req.dateRegistered(), id);
 
+        Long oldProjectId = t.getProject().getId();
+        Set<Long> oldPersonIds = new HashSet<>(List.of(t.getFromPerson().getId(), t.getToPerson().getId()));
         apply(t, req.projectId(), req.fromPersonId(), req.toPersonId(),
                 req.code(), req.dateDue(), req.amountPaid(),
                 req.paymentType(), req.transactionType(), req.dateRegistered(), req.dsc());
-
         Transaction saved = transactionRepository.save(t);
+        documentService.moveProjectUsage(DocumentOwnerType.TRANSACTION, id, oldProjectId, req.projectId());
+
+        eventPublisher.publishEvent(new FinancialDataChangedEvent("transactions"));
+        // only a newly picked person counts as a use; re-saving must not inflate the counters
+        List<Long> newPersonIds = Stream.of(req.fromPersonId(), req.toPersonId())
+                .filter(p -> !oldPersonIds.contains(p)).distinct().toList();
+        if (!newPersonIds.isEmpty()) {
+            eventPublisher.publishEvent(new EntitiesUsedEvent(newPersonIds, List.of(), List.of()));
+        }
 
         BigDecimal allocated = getAllocatedForTransaction(saved.getId());
         return toResponse(saved, allocated);
@@ -103,13 +133,15 @@ public class TransactionService {
             throw new IllegalArgumentException("امکان حذف پرداخت وجود ندارد؛ برای این پرداخت تخصیص یا سند ثبت شده است.");
         }
 
+        eventPublisher.publishEvent(new FinancialDataChangedEvent("transactions"));
         transactionRepository.delete(t);
     }
 
     // ---------------- Extra APIs ----------------
 
     @Transactional(readOnly = true)
-    public List<LedgerRowResponse> ledger(Long projectId, Long personId, LocalDate from, LocalDate to) {
+    public List<LedgerRowResponse> ledger(Long projectId, Long personId, LocalDate from, LocalDate to,
+                                          boolean includeSubprojects) {
         if (projectId == null) throw new IllegalArgumentException("شناسه پروژه الزامی است.");
         if (personId == null) throw new IllegalArgumentException("شناسه شخص الزامی است.");
 
@@ -133,9 +165,9 @@ public class TransactionService {
                     end as delta_for_person,
                     t.dsc
                 from transactions t
-                where t.project_id = ?
+                where %s
                   and (t.from_person_id = ? or t.to_person_id = ?)
-                """);
+                """.formatted(ProjectScope.predicate("t.project_id", includeSubprojects)));
 
         List<Object> args = new ArrayList<>();
         args.add(personId);
@@ -155,7 +187,7 @@ public class TransactionService {
 
         sql.append(" order by t.date_registered asc, t.id asc ");
 
-        List<LedgerRowResponse> rows = jdbcTemplate.query(sql.toString(), (rs, rowNum) -> {
+        List<LedgerRowResponse> rows = queryMetrics.list("transactions.ledger", sql.toString(), q -> jdbcTemplate.query(q, (rs, rowNum) -> {
             Long transactionId = rs.getLong("transaction_id");
             LocalDateTime dateRegistered = rs.getTimestamp("date_registered").toLocalDateTime();
             String code = rs.getString("code");
@@ -176,10 +208,15 @@ public class TransactionService {
                     BigDecimal.ZERO, // runningBalance filled below
                     dsc
             );
-        }, args.toArray());
+        }, args.toArray()));
+
+        return withRunningBalance(rows);
+    }
 
+    // rows in ledger order (date_registered, id)
+    static List<LedgerRowResponse> withRunningBalance(List<LedgerRowResponse> rows) {
         BigDecimal running = BigDecimal.ZERO;
-        List<LedgerRowResponse> withBalance = new ArrayList<>();
+        List<LedgerRowResponse> withBalance = new ArrayList<>(rows.size());
         for (LedgerRowResponse r : rows) {
             running = running.add(r.deltaForPerson() == null ? BigDecimal.ZERO : r.deltaForPerson());
             withBalance.add(new LedgerRowResponse(
@@ -198,7 +235,7 @@ public class TransactionService {
     }
 
     @Transactional(readOnly = true)
-    public PersonBalanceResponse personBalance(Long projectId, Long personId) {
+    public PersonBalanceResponse personBalance(Long projectId, Long personId, boolean includeSubprojects) {
         if (projectId == null) throw new IllegalArgumentException("شناسه پروژه الزامی است.");
         if (personId == null) throw new IllegalArgumentException("شناسه شخص الزامی است.");
 
@@ -207,17 +244,19 @@ public class TransactionService {
         personRepository.findById(personId).orElseThrow(() ->
                 new IllegalArgumentException("شخص مورد نظر یافت نشد. (شناسه: " + personId + ")"));
 
-        BigDecimal totalIn = jdbcTemplate.queryForObject("""
+        BigDecimal totalIn = queryMetrics.one("transactions.person-balance.in", """
                         select coalesce(sum(amount_paid),0)
                         from transactions
-                        where project_id = ? and to_person_id = ?
-                        """, BigDecimal.class, projectId, personId);
+                        where %s and to_person_id = ?
+                        """.formatted(ProjectScope.predicate("project_id", includeSubprojects)),
+                q -> jdbcTemplate.queryForObject(q, BigDecimal.class, projectId, personId));
 
-        BigDecimal totalOut = jdbcTemplate.queryForObject("""
+        BigDecimal totalOut = queryMetrics.one("transactions.person-balance.out", """
                         select coalesce(sum(amount_paid),0)
                         from transactions
-                        where project_id = ? and from_person_id = ?
-                        """, BigDecimal.class, projectId, personId);
+                        where %s and from_person_id = ?
+                        """.formatted(ProjectScope.predicate("project_id", includeSubprojects)),
+                q -> jdbcTemplate.queryForObject(q, BigDecimal.class, projectId, personId));
 
         if (totalIn == null) totalIn = BigDecimal.ZERO;
         if (totalOut == null) totalOut = BigDecimal.ZERO;
@@ -226,7 +265,8 @@ public class TransactionService {
     }
 
     @Transactional(readOnly = true)
-    public PairBalanceResponse pairBalance(Long projectId, Long fromPersonId, Long toPersonId) {
+    public PairBalanceResponse pairBalance(Long projectId, Long fromPersonId, Long toPersonId,
+                                           boolean includeSubprojects) {
         if (projectId == null) throw new IllegalArgumentException("شناسه پروژه الزامی است.");
         if (fromPersonId == null) throw new IllegalArgumentException("شناسه شخص پرداخت‌کننده (fromPerson) الزامی است.");
         if (toPersonId == null) throw new IllegalArgumentException("شناسه شخص دریافت‌کننده (toPerson) الزامی است.");
@@ -238,17 +278,19 @@ public class TransactionService {
         personRepository.findById(toPersonId).orElseThrow(() ->
                 new IllegalArgumentException("شخص دریافت‌کننده یافت نشد. (شناسه: " + toPersonId + ")"));
 
-        BigDecimal fromToToTotal = jdbcTemplate.queryForObject("""
+        BigDecimal fromToToTotal = queryMetrics.one("transactions.pair-balance", """
                         select coalesce(sum(amount_paid),0)
                         from transactions
-                        where project_id = ? and from_person_id = ? and to_person_id = ?
-                        """, BigDecimal.class, projectId, fromPersonId, toPersonId);
+                        where %s and from_person_id = ? and to_person_id = ?
+                        """.formatted(ProjectScope.predicate("project_id", includeSubprojects)),
+                q -> jdbcTemplate.queryForObject(q, BigDecimal.class, projectId, fromPersonId, toPersonId));
 
-        BigDecimal toToFromTotal = jdbcTemplate.queryForObject("""
+        BigDecimal toToFromTotal = queryMetrics.one("transactions.pair-balance", """
                         select coalesce(sum(amount_paid),0)
                         from transactions
-                        where project_id = ? and from_person_id = ? and to_person_id = ?
-                        """, BigDecimal.class, projectId, toPersonId, fromPersonId);
+                        where %s and from_person_id = ? and to_person_id = ?
+                        """.formatted(ProjectScope.predicate("project_id", includeSubprojects)),
+                q -> jdbcTemplate.queryForObject(q, BigDecimal.class, projectId, toPersonId, fromPersonId));
 
         if (fromToToTotal == null) fromToToTotal = BigDecimal.ZERO;
         if (toToFromTotal == null) toToFromTotal = BigDecimal.ZERO;
@@ -322,7 +364,7 @@ public class TransactionService {
         t.setDsc(trimToNull(dsc));
     }
 
-    private TransactionResponse toResponse(Transaction t, BigDecimal allocatedAmount) {
+    static TransactionResponse toResponse(Transaction t, BigDecimal allocatedAmount) {
         BigDecimal amountPaid = t.getAmountPaid() == null ? BigDecimal.ZERO : t.getAmountPaid();
         BigDecimal allocated = allocatedAmount == null ? BigDecimal.ZERO : allocatedAmount;
         BigDecimal remaining = amountPaid.subtract(allocated);
@@ -352,23 +394,23 @@ public class TransactionService {
     }
 
     private boolean isTransactionReferenced(Long transactionId) {
-        Integer trackCount = jdbcTemplate.queryForObject(
+        Integer trackCount = queryMetrics.one("transactions.track-count",
                 "select count(1) from transaction_tracks where transaction_id = ?",
-                Integer.class, transactionId
+                q -> jdbcTemplate.queryForObject(q, Integer.class, transactionId)
         );
-        Integer docCount = jdbcTemplate.queryForObject(
+        Integer docCount = queryMetrics.one("transactions.document-count",
                 "select count(1) from transaction_documents where transaction_id = ?",
-                Integer.class, transactionId
+                q -> jdbcTemplate.queryForObject(q, Integer.class, transactionId)
         );
         return (trackCount != null && trackCount > 0) || (docCount != null && docCount > 0);
     }
 
     private BigDecimal getAllocatedForTransaction(Long transactionId) {
-        BigDecimal sum = jdbcTemplate.queryForObject("""
+        BigDecimal sum = queryMetrics.one("transactions.allocated", """
                 select coalesce(sum(covered_amount), 0)
                 from transaction_tracks
                 where transaction_id = ?
-                """, BigDecimal.class, transactionId);
+                """, q -> jdbcTemplate.queryForObject(q, BigDecimal.class, transactionId));
         return sum == null ? BigDecimal.ZERO : sum;
     }
 
@@ -385,7 +427,8 @@ public class TransactionService {
                 group by transaction_id
                 """;
 
-        List<Map<String, Object>> rows = jdbcTemplate.queryForList(sql, transactionIds.toArray());
+        List<Map<String, Object>> rows = queryMetrics.list("transactions.allocated-by-id", sql,
+                q -> jdbcTemplate.queryForList(q, transactionIds.toArray()));
 
         Map<Long, BigDecimal> map = new HashMap<>();
         for (Map<String, Object> r : rows) {
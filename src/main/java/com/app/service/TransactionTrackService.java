@@ -1,13 +1,17 @@
 package com.app.service;
 
 import com.app.dto.transactiontrack.*;
+import com.app.event.FinancialDataChangedEvent;
 import com.app.model.DebtHeader;
 import com.app.model.Transaction;
 import com.app.model.TransactionTrack;
 import com.app.repository.DebtHeaderRepository;
 import com.app.repository.TransactionRepository;
 import com.app.repository.TransactionTrackRepository;
+import com.app.util.QueryMetrics;
+import io.micrometer.observation.annotation.Observed;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -17,21 +21,28 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Service
+@Observed(name = "app.service")
 public class TransactionTrackService {
 
     private final TransactionTrackRepository trackRepository;
     private final DebtHeaderRepository debtHeaderRepository;
     private final TransactionRepository transactionRepository;
     private final JdbcTemplate jdbcTemplate;
+    private final QueryMetrics queryMetrics;
+    private final ApplicationEventPublisher eventPublisher;
 
     public TransactionTrackService(TransactionTrackRepository trackRepository,
                                    DebtHeaderRepository debtHeaderRepository,
                                    TransactionRepository transactionRepository,
-                                   JdbcTemplate jdbcTemplate) {
+                                   JdbcTemplate jdbcTemplate,
+                                   QueryMetrics queryMetrics,
+                                   ApplicationEventPublisher eventPublisher) {
         this.trackRepository = trackRepository;
         this.debtHeaderRepository = debtHeaderRepository;
         this.transactionRepository = transactionRepository;
         this.jdbcTemplate = jdbcTemplate;
+        this.queryMetrics = queryMetrics;
+        this.eventPublisher = eventPublisher;
     }
 
     // ---------------- CREATE (from DEBT side) ----------------
@@ -77,6 +88,7 @@ public class TransactionTrackService {
 
         try {
             TransactionTrack saved = trackRepository.save(track);
+            eventPublisher.publishEvent(new FinancialDataChangedEvent("allocations"));
             return toResponse(saved);
         } catch (DataIntegrityViolationException e) {
             throw new IllegalArgumentException("ثبت تخصیص انجام نشد. احتمالاً این تخصیص تکراری است یا محدودیت دیتابیس وجود دارد.");
@@ -126,6 +138,7 @@ public class TransactionTrackService {
 
         try {
             TransactionTrack saved = trackRepository.save(track);
+            eventPublisher.publishEvent(new FinancialDataChangedEvent("allocations"));
             return toResponse(saved);
         } catch (DataIntegrityViolationException e) {
             throw new IllegalArgumentException("ثبت تخصیص انجام نشد. احتمالاً این تخصیص تکراری است یا محدودیت دیتابیس وجود دارد.");
@@ -162,6 +175,7 @@ public class TransactionTrackService {
             throw new IllegalArgumentException("این تخصیص متعلق به این بدهی نیست.");
         }
 
+        eventPublisher.publishEvent(new FinancialDataChangedEvent("allocations"));
         trackRepository.delete(tr);
     }
 
@@ -177,6 +191,7 @@ public class TransactionTrackService {
             throw new IllegalArgumentException("این تخصیص متعلق به این پرداخت نیست.");
         }
 
+        eventPublisher.publishEvent(new FinancialDataChangedEvent("allocations"));
         trackRepository.delete(tr);
     }
 
@@ -237,7 +252,9 @@ public class TransactionTrackService {
         existing.setDsc(trimToNull(req.dsc()));
 
         try {
-            return toResponse(trackRepository.save(existing));
+            TransactionTrack saved = trackRepository.save(existing);
+            eventPublisher.publishEvent(new FinancialDataChangedEvent("allocations"));
+            return toResponse(saved);
         } catch (DataIntegrityViolationException e) {
             throw new IllegalArgumentException("ویرایش تخصیص انجام نشد. احتمالاً این تخصیص تکراری است یا محدودیت دیتابیس وجود دارد.");
         }
@@ -300,7 +317,9 @@ public class TransactionTrackService {
         existing.setDsc(trimToNull(req.dsc()));
 
         try {
-            return toResponse(trackRepository.save(existing));
+            TransactionTrack saved = trackRepository.save(existing);
+            eventPublisher.publishEvent(new FinancialDataChangedEvent("allocations"));
+            return toResponse(saved);
         } catch (DataIntegrityViolationException e) {
             throw new IllegalArgumentException("ویرایش تخصیص انجام نشد. احتمالاً این تخصیص تکراری است یا محدودیت دیتابیس وجود دارد.");
         }
@@ -349,23 +368,32 @@ public class TransactionTrackService {
         Long finalEditingTxId = editingTxId;
         BigDecimal finalEditingOldAmount = editingOldAmount;
 
-        return jdbcTemplate.query(sql, (rs, rowNum) -> {
+        return queryMetrics.list("tracks.transaction-candidates", sql, q -> jdbcTemplate.query(q, (rs, rowNum) -> {
             Long id = rs.getLong("id");
             String code = rs.getString("code");
             LocalDateTime dateRegistered = toLocalDateTime(rs.getTimestamp("date_registered"));
             BigDecimal amountPaid = nz(rs.getBigDecimal("amount_paid"));
             BigDecimal allocated = nz(rs.getBigDecimal("allocated_amount"));
-            BigDecimal remaining = amountPaid.subtract(allocated);
 
-            BigDecimal editableRemaining = remaining;
-            if (finalEditingTxId != null && id.equals(finalEditingTxId)) {
-                editableRemaining = remaining.add(finalEditingOldAmount);
-            }
+            return transactionCandidate(id, code, dateRegistered, amountPaid, allocated,
+                    finalEditingTxId, finalEditingOldAmount);
+        }, debtPersonId));
+    }
+
+    // the allocation being edited may reuse its own old amount
+    static TransactionCandidateResponse transactionCandidate(Long id, String code, LocalDateTime dateRegistered,
+                                                             BigDecimal amountPaid, BigDecimal allocated,
+                                                             Long editingTxId, BigDecimal editingOldAmount) {
+        BigDecimal remaining = amountPaid.subtract(allocated);
+
+        BigDecimal editableRemaining = remaining;
+        if (editingTxId != null && id.equals(editingTxId)) {
+            editableRemaining = remaining.add(editingOldAmount);
+        }
 
-            return new TransactionCandidateResponse(
-                    id, code, dateRegistered, amountPaid, allocated, remaining, editableRemaining
-            );
-        }, debtPersonId);
+        return new TransactionCandidateResponse(
+                id, code, dateRegistered, amountPaid, allocated, remaining, editableRemaining
+        );
     }
 
     @Transactional(readOnly = true)
@@ -415,33 +443,40 @@ public class TransactionTrackService {
         Long finalEditingDebtId = editingDebtId;
         BigDecimal finalEditingOldAmount = editingOldAmount;
 
-        return jdbcTemplate.query(sql, (rs, rowNum) -> {
+        return queryMetrics.list("tracks.debt-candidates", sql, q -> jdbcTemplate.query(q, (rs, rowNum) -> {
             Long id = rs.getLong("debt_id");
             String personTitle = rs.getString("person_title");
             LocalDateTime dateRegistered = toLocalDateTime(rs.getTimestamp("date_registered"));
             BigDecimal total = nz(rs.getBigDecimal("total_amount"));
             BigDecimal allocated = nz(rs.getBigDecimal("allocated_amount"));
-            BigDecimal remaining = total.subtract(allocated);
 
-            BigDecimal editableRemaining = remaining;
-            if (finalEditingDebtId != null && id.equals(finalEditingDebtId)) {
-                editableRemaining = remaining.add(finalEditingOldAmount);
-            }
+            return debtCandidate(id, personTitle, dateRegistered, total, allocated,
+                    finalEditingDebtId, finalEditingOldAmount);
+        }, txToPersonId));
+    }
+
+    static DebtCandidateResponse debtCandidate(Long id, String personTitle, LocalDateTime dateRegistered,
+                                               BigDecimal total, BigDecimal allocated,
+                                               Long editingDebtId, BigDecimal editingOldAmount) {
+        BigDecimal remaining = total.subtract(allocated);
 
-            return new DebtCandidateResponse(
-                    id, personTitle, dateRegistered, total, allocated, remaining, editableRemaining
-            );
-        }, txToPersonId);
+        BigDecimal editableRemaining = remaining;
+        if (editingDebtId != null && id.equals(editingDebtId)) {
+            editableRemaining = remaining.add(editingOldAmount);
+        }
+
+        return new DebtCandidateResponse(
+                id, personTitle, dateRegistered, total, allocated, remaining, editableRemaining
+        );
     }
 
     // -------- helpers --------
 
     private BigDecimal getDebtTotal(Long debtId) {
-        BigDecimal total = jdbcTemplate.queryForObject(
+        BigDecimal total = queryMetrics.one("tracks.debt-total",
                 "select coalesce(sum(cast(qnt as decimal(18,2)) * cast(unit_price as decimal(18,2))), 0) " +
                         "from debts_detail where debt_header_id = ?",
-                BigDecimal.class,
-                debtId
+                q -> jdbcTemplate.queryForObject(q, BigDecimal.class, debtId)
         );
         return total == null ? BigDecimal.ZERO : total;
     }
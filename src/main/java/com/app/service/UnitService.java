@@ -1,8 +1,10 @@
 package com.app.service;
 
 import com.app.dto.unit.*;
+import com.app.event.UnitsChangedEvent;
 import com.app.model.Unit;
 import com.app.repository.UnitRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -12,11 +14,14 @@ import java.util.List;
 public class UnitService {
 
     private final UnitRepository repo;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public UnitService(UnitRepository repo) {
+    public UnitService(UnitRepository repo, ApplicationEventPublisher eventPublisher) {
         this.repo = repo;
+        this.eventPublisher = eventPublisher;
     }
 
+    @Transactional
     public UnitResponse create(UnitCreateRequest req) {
         if (req == null) throw new IllegalArgumentException("اطلاعات واحد ارسال نشده است.");
 
@@ -27,8 +32,9 @@ public class UnitService {
             throw new IllegalArgumentException("این عنوان واحد قبلاً ثبت شده است: " + title);
         }
 
-        Unit u = new Unit(null, title, trimToNull(req.dsc()));
-        return toResponse(repo.save(u));
+        Unit saved = repo.save(new Unit(null, title, trimToNull(req.dsc())));
+        eventPublisher.publishEvent(new UnitsChangedEvent(saved.getId()));
+        return toResponse(saved);
     }
 
     public List<UnitResponse> getAll() {
@@ -59,9 +65,11 @@ public class UnitService {
 
         u.setTitle(title);
         u.setDsc(trimToNull(req.dsc()));
+        eventPublisher.publishEvent(new UnitsChangedEvent(id));
         return toResponse(u);
     }
 
+    @Transactional
     public void delete(Long id) {
         if (id == null) throw new IllegalArgumentException("شناسه واحد الزامی است.");
 
@@ -69,6 +77,7 @@ public class UnitService {
             throw new IllegalArgumentException("واحد یافت نشد. (شناسه: " + id + ")");
         }
         repo.deleteById(id);
+        eventPublisher.publishEvent(new UnitsChangedEvent(id));
     }
 
     private UnitResponse toResponse(Unit u) {
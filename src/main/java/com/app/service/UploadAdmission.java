@@ -0,0 +1,73 @@
+package com.app.service;
+
+import com.app.exception.ServiceBusyException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps the number of upload bytes being processed at once across the node.
+ * Permits are KB of the in-flight budget; a request that cannot get its share
+ * within a short wait is rejected with 503 instead of queueing up in heap.
+ */
+@Component
+public class UploadAdmission {
+
+    private final Semaphore permits;
+    private final int budgetKb;
+    private final long waitMillis;
+    private final long retryAfterSeconds;
+
+    public UploadAdmission(@Value("${app.documents.upload.in-flight-budget-bytes:67108864}") long budgetBytes,
+                           @Value("${app.documents.upload.admission-wait-ms:200}") long waitMillis,
+                           @Value("${app.documents.upload.retry-after-seconds:5}") long retryAfterSeconds) {
+        this.budgetKb = (int) Math.max(1, Math.min(Integer.MAX_VALUE, budgetBytes / 1024));
+        this.permits = new Semaphore(budgetKb, true);
+        this.waitMillis = waitMillis;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * usage: try (var ignored = uploadAdmission.admit(size)) { ... }
+     */
+    public Ticket admit(long bytes) {
+        // a single request bigger than the whole budget still gets in, just alone
+        int kb = (int) Math.min(budgetKb, Math.max(1, (bytes + 1023) / 1024));
+
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(kb, waitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            throw new ServiceBusyException("سرور در حال پردازش بارگذاری‌های دیگر است. لطفاً چند ثانیه بعد دوباره تلاش کنید.",
+                    retryAfterSeconds);
+        }
+        return new Ticket(kb);
+    }
+
+    public int availableKb() {
+        return permits.availablePermits();
+    }
+
+    public final class Ticket implements AutoCloseable {
+        private final int kb;
+        private boolean released;
+
+        private Ticket(int kb) {
+            this.kb = kb;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                permits.release(kb);
+            }
+        }
+    }
+}
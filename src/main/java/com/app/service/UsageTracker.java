@@ -0,0 +1,289 @@
+package com.app.service;
+
+import com.app.dto.usage.UsageEntryResponse;
+import com.app.enums.UsageEntityType;
+import com.app.event.EntitiesUsedEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Usage counters for pickers (persons, items, units).
+ *
+ * Committed debts / transactions only add to an in-memory pending map; a scheduled flush
+ * writes the increments to usage_counters in one batch and rebuilds the top-K lists
+ * (with titles), so "most used" is served from memory. "Recently used" is a small
+ * per-user LRU kept in memory only; it starts empty after a restart.
+ */
+@Component
+public class UsageTracker {
+
+    private static final Logger log = LoggerFactory.getLogger(UsageTracker.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int topK;
+    private final int recentSize;
+
+    private final Map<Key, LongAdder> pending = new ConcurrentHashMap<>();
+    private final Map<String, Map<UsageEntityType, RecentList>> recent = new ConcurrentHashMap<>();
+    // a lock rather than the monitor: flush and the first top-K build hold it across queries
+    private final Lock lock = new ReentrantLock();
+    private final Map<Key, Long> counts = new HashMap<>(); // guarded by lock
+    private boolean countsLoaded; // guarded by lock
+    private final AtomicReference<Map<UsageEntityType, List<UsageEntryResponse>>> top = new AtomicReference<>();
+
+    public UsageTracker(JdbcTemplate jdbcTemplate,
+                        @Value("${app.usage.top-k:50}") int topK,
+                        @Value("${app.usage.recent-per-user:20}") int recentSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.topK = topK;
+        this.recentSize = recentSize;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntitiesUsed(EntitiesUsedEvent event) {
+        String user = currentUser();
+        record(UsageEntityType.PERSON, event.personIds(), user);
+        record(UsageEntityType.ITEM, event.itemIds(), user);
+        record(UsageEntityType.UNIT, event.unitIds(), user);
+    }
+
+    public List<UsageEntryResponse> mostUsed(UsageEntityType type, int limit) {
+        Map<UsageEntityType, List<UsageEntryResponse>> t = top.get();
+        if (t == null) t = rebuildTop();
+        List<UsageEntryResponse> list = t.getOrDefault(type, List.of());
+        return list.subList(0, Math.min(limit, list.size()));
+    }
+
+    /**
+     * Most recent first, for the calling user; empty for anonymous requests.
+     */
+    public List<UsageEntryResponse> recentlyUsed(UsageEntityType type, int limit) {
+        String user = currentUser();
+        if (user == null) return List.of();
+        Map<UsageEntityType, RecentList> byType = recent.get(user);
+        RecentList list = byType == null ? null : byType.get(type);
+        if (list == null) return List.of();
+
+        List<Long> ids = list.newestFirst(limit);
+        Map<Long, String[]> labels = labels(type, ids);
+        List<UsageEntryResponse> out = new ArrayList<>(ids.size());
+        lock.lock();
+        try {
+            for (Long id : ids) {
+                String[] l = labels.get(id);
+                if (l == null) continue; // deleted since
+                Key k = new Key(type, id);
+                LongAdder p = pending.get(k);
+                long n = counts.getOrDefault(k, 0L) + (p == null ? 0 : p.sum());
+                out.add(new UsageEntryResponse(type.name(), id, l[0], l[1], n));
+            }
+        } finally {
+            lock.unlock();
+        }
+        return out;
+    }
+
+    @Scheduled(fixedDelayString = "${app.usage.flush-interval-ms:10000}",
+            initialDelayString = "${app.usage.flush-interval-ms:10000}")
+    public void scheduledFlush() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Usage counter flush failed, will retry: {}", e.toString());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduledFlush();
+    }
+
+    public void flush() {
+        if (pending.isEmpty()) return;
+
+        lock.lock();
+        try {
+            flushLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ---------------- internals ----------------
+
+    private void flushLocked() {
+        ensureCountsLoaded();
+
+        List<Object[]> batch = new ArrayList<>(pending.size());
+        Map<Key, Long> drained = new HashMap<>();
+        // adders stay in the map (one per referenced row): removing them would race with
+        // a concurrent increment on the detached adder
+        for (Map.Entry<Key, LongAdder> e : pending.entrySet()) {
+            long n = e.getValue().sumThenReset();
+            if (n == 0) continue;
+            drained.put(e.getKey(), n);
+            batch.add(new Object[]{e.getKey().type().getCode(), e.getKey().id(), n});
+        }
+        if (batch.isEmpty()) return;
+
+        try {
+            jdbcTemplate.batchUpdate("""
+                    merge usage_counters with (holdlock) as t
+                    using (select ? as entity_type, ? as entity_id, ? as n) s
+                      on t.entity_type = s.entity_type and t.entity_id = s.entity_id
+                    when matched then
+                      update set use_count = t.use_count + s.n, last_used_at = sysdatetime()
+                    when not matched then
+                      insert (entity_type, entity_id, use_count, last_used_at)
+                      values (s.entity_type, s.entity_id, s.n, sysdatetime());
+                    """, batch);
+        } catch (RuntimeException e) {
+            // put the increments back so the next flush retries them
+            drained.forEach((k, n) -> pending.computeIfAbsent(k, x -> new LongAdder()).add(n));
+            throw e;
+        }
+
+        drained.forEach((k, n) -> counts.merge(k, n, Long::sum));
+        top.set(buildTop());
+    }
+
+    private void record(UsageEntityType type, List<Long> ids, String user) {
+        if (ids == null || ids.isEmpty()) return;
+        for (Long id : new LinkedHashSet<>(ids)) {
+            if (id == null) continue;
+            pending.computeIfAbsent(new Key(type, id), k -> new LongAdder()).increment();
+            if (user != null) {
+                recent.computeIfAbsent(user, u -> new ConcurrentHashMap<>())
+                        .computeIfAbsent(type, t -> new RecentList(recentSize))
+                        .touch(id);
+            }
+        }
+    }
+
+    private Map<UsageEntityType, List<UsageEntryResponse>> rebuildTop() {
+        lock.lock();
+        try {
+            Map<UsageEntityType, List<UsageEntryResponse>> t = top.get();
+            if (t != null) return t;
+            ensureCountsLoaded();
+            t = buildTop();
+            top.set(t);
+            return t;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void ensureCountsLoaded() {
+        if (countsLoaded) return;
+        Map<String, UsageEntityType> byCode = Arrays.stream(UsageEntityType.values())
+                .collect(Collectors.toMap(UsageEntityType::getCode, x -> x));
+        jdbcTemplate.query("select entity_type, entity_id, use_count from usage_counters", (RowCallbackHandler) rs -> {
+            UsageEntityType type = byCode.get(rs.getString("entity_type"));
+            if (type != null) counts.put(new Key(type, rs.getLong("entity_id")), rs.getLong("use_count"));
+        });
+        countsLoaded = true;
+    }
+
+    private Map<UsageEntityType, List<UsageEntryResponse>> buildTop() {
+        Map<UsageEntityType, List<Map.Entry<Key, Long>>> byType = new EnumMap<>(UsageEntityType.class);
+        for (Map.Entry<Key, Long> e : counts.entrySet()) {
+            byType.computeIfAbsent(e.getKey().type(), x -> new ArrayList<>()).add(e);
+        }
+
+        Map<UsageEntityType, List<UsageEntryResponse>> out = new EnumMap<>(UsageEntityType.class);
+        for (Map.Entry<UsageEntityType, List<Map.Entry<Key, Long>>> e : byType.entrySet()) {
+            // partial selection would do, but the lists are only as long as the reference tables
+            List<Map.Entry<Key, Long>> sorted = e.getValue();
+            sorted.sort((a, b) -> a.getValue().equals(b.getValue())
+                    ? Long.compare(a.getKey().id(), b.getKey().id())
+                    : Long.compare(b.getValue(), a.getValue()));
+
+            // over-fetch a little: some ids may have been deleted
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < sorted.size() && ids.size() < topK + topK / 2; i++) ids.add(sorted.get(i).getKey().id());
+            Map<Long, String[]> labels = labels(e.getKey(), ids);
+
+            List<UsageEntryResponse> list = new ArrayList<>(topK);
+            for (Map.Entry<Key, Long> c : sorted) {
+                if (list.size() >= topK) break;
+                String[] l = labels.get(c.getKey().id());
+                if (l != null) list.add(new UsageEntryResponse(e.getKey().name(), c.getKey().id(), l[0], l[1], c.getValue()));
+            }
+            out.put(e.getKey(), List.copyOf(list));
+        }
+        return out;
+    }
+
+    /**
+     * id -> {code, title}; missing ids were deleted.
+     */
+    private Map<Long, String[]> labels(UsageEntityType type, List<Long> ids) {
+        Map<Long, String[]> out = new HashMap<>();
+        if (ids.isEmpty()) return out;
+
+        String in = String.join(",", Collections.nCopies(ids.size(), "?"));
+        String sql = switch (type) {
+            case ITEM -> "select id, code, title from items where id in (" + in + ")";
+            case UNIT -> "select id, null as code, title from units where id in (" + in + ")";
+            case PERSON -> """
+                    select id, null as code,
+                           case when is_legal = 1 then company_name
+                                else ltrim(rtrim(concat(name, N' ', last_name))) end as title
+                    from persons where id in (%s)
+                    """.formatted(in);
+        };
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs ->
+                out.put(rs.getLong("id"), new String[]{rs.getString("code"), rs.getString("title")}), ids.toArray());
+        return out;
+    }
+
+    private static String currentUser() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated() || auth instanceof AnonymousAuthenticationToken) return null;
+        return auth.getName();
+    }
+
+    private record Key(UsageEntityType type, long id) {}
+
+    private static final class RecentList {
+        private final LinkedHashMap<Long, Boolean> ids;
+
+        RecentList(int capacity) {
+            this.ids = new LinkedHashMap<>(capacity * 2, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        synchronized void touch(Long id) {
+            ids.put(id, Boolean.TRUE);
+        }
+
+        synchronized List<Long> newestFirst(int limit) {
+            List<Long> all = new ArrayList<>(ids.keySet());
+            Collections.reverse(all);
+            return all.subList(0, Math.min(limit, all.size()));
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.app.util;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Timers and row counts for hand-written jdbcTemplate queries, tagged by a fixed logical
+ * name ("transactions.ledger", ...), plus a slow-query log. The query runs inside the
+ * callback, which receives the SQL it was given:
+ *
+ *   queryMetrics.list("debts.open", sql, s -> jdbcTemplate.queryForList(s, projectId))
+ *
+ * Meters: app.sql.query (timer; tags query, outcome) and app.sql.rows (rows returned or
+ * affected; tag query). Each query is also a "sql <name>" span under the current one.
+ * The slow-query log prints the SQL text only: bound values may be personal or financial
+ * data, so just their count is logged.
+ */
+@Component
+public class QueryMetrics {
+
+    private static final Logger log = LoggerFactory.getLogger("com.app.sql.slow");
+    private static final int MAX_LOGGED_SQL = 2000;
+
+    private final MeterRegistry registry;
+    private final Tracer tracer;
+    private final long slowQueryNanos;
+    private final Map<String, Meters> meters = new ConcurrentHashMap<>();
+
+    public QueryMetrics(MeterRegistry registry,
+                        ObjectProvider<Tracer> tracer,
+                        @Value("${app.sql.slow-query-ms:500}") long slowQueryMs) {
+        this.registry = registry;
+        this.tracer = tracer.getIfAvailable(() -> Tracer.NOOP);
+        this.slowQueryNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryMs);
+    }
+
+    public <T> List<T> list(String name, String sql, Function<String, List<T>> query) {
+        Span span = startSpan(name);
+        long start = System.nanoTime();
+        List<T> rows;
+        try {
+            rows = query.apply(sql);
+        } catch (RuntimeException e) {
+            record(name, sql, System.nanoTime() - start, -1, false);
+            endSpan(span, -1, e);
+            throw e;
+        }
+        int n = rows == null ? 0 : rows.size();
+        record(name, sql, System.nanoTime() - start, n, true);
+        endSpan(span, n, null);
+        return rows;
+    }
+
+    /**
+     * Single value (queryForObject, aggregates): no row count.
+     */
+    public <T> T one(String name, String sql, Function<String, T> query) {
+        Span span = startSpan(name);
+        long start = System.nanoTime();
+        T value;
+        try {
+            value = query.apply(sql);
+        } catch (RuntimeException e) {
+            record(name, sql, System.nanoTime() - start, -1, false);
+            endSpan(span, -1, e);
+            throw e;
+        }
+        record(name, sql, System.nanoTime() - start, -1, true);
+        endSpan(span, -1, null);
+        return value;
+    }
+
+    public int update(String name, String sql, ToIntFunction<String> update) {
+        Span span = startSpan(name);
+        long start = System.nanoTime();
+        int affected;
+        try {
+            affected = update.applyAsInt(sql);
+        } catch (RuntimeException e) {
+            record(name, sql, System.nanoTime() - start, -1, false);
+            endSpan(span, -1, e);
+            throw e;
+        }
+        record(name, sql, System.nanoTime() - start, affected, true);
+        endSpan(span, affected, null);
+        return affected;
+    }
+
+    /**
+     * JDBC batch (batchUpdate); rows = statements in the batch.
+     */
+    public int[] batch(String name, String sql, Function<String, int[]> batch) {
+        Span span = startSpan(name);
+        long start = System.nanoTime();
+        int[] counts;
+        try {
+            counts = batch.apply(sql);
+        } catch (RuntimeException e) {
+            record(name, sql, System.nanoTime() - start, -1, false);
+            endSpan(span, -1, e);
+            throw e;
+        }
+        record(name, sql, System.nanoTime() - start, counts.length, true);
+        endSpan(span, counts.length, null);
+        return counts;
+    }
+
+    /**
+     * Streaming queries (RowCallbackHandler) and statements without a useful count.
+     */
+    public void run(String name, String sql, Consumer<String> query) {
+        one(name, sql, s -> {
+            query.accept(s);
+            return null;
+        });
+    }
+
+    // leaf span: JDBC work inside doesn't start spans of its own, so it isn't put in scope
+    private Span startSpan(String name) {
+        return tracer.nextSpan().name("sql " + name).tag("db.system", "mssql").tag("db.operation.name", name).start();
+    }
+
+    private static void endSpan(Span span, long rows, RuntimeException error) {
+        if (rows >= 0) span.tag("db.rows", String.valueOf(rows));
+        if (error != null) span.error(error);
+        span.end();
+    }
+
+    private void record(String name, String sql, long nanos, long rows, boolean success) {
+        Meters m = meters.computeIfAbsent(name, this::register);
+        (success ? m.success : m.error).record(nanos, TimeUnit.NANOSECONDS);
+        if (rows >= 0) m.rows.record(rows);
+
+        if (nanos >= slowQueryNanos) {
+            log.warn("Slow query {} took {} ms{} [{} bound parameters redacted]: {}",
+                    name, TimeUnit.NANOSECONDS.toMillis(nanos),
+                    rows >= 0 ? " (" + rows + " rows)" : "",
+                    parameterCount(sql), oneLine(sql));
+        }
+    }
+
+    private Meters register(String name) {
+        return new Meters(
+                timer(name, "success"),
+                timer(name, "error"),
+                DistributionSummary.builder("app.sql.rows")
+                        .description("Rows returned or affected per query")
+                        .baseUnit("rows")
+                        .tag("query", name)
+                        .serviceLevelObjectives(0, 1, 10, 100, 1_000, 10_000, 100_000)
+                        .register(registry));
+    }
+
+    private Timer timer(String name, String outcome) {
+        return Timer.builder("app.sql.query")
+                .description("Hand-written SQL query execution time")
+                .tag("query", name)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static int parameterCount(String sql) {
+        int n = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            if (sql.charAt(i) == '?') n++;
+        }
+        return n;
+    }
+
+    private static String oneLine(String sql) {
+        String s = sql.replaceAll("\\s+", " ").trim();
+        return s.length() <= MAX_LOGGED_SQL ? s : s.substring(0, MAX_LOGGED_SQL) + "...";
+    }
+
+    private record Meters(Timer success, Timer error, DistributionSummary rows) {}
+}
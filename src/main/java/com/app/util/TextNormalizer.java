@@ -0,0 +1,73 @@
+package com.app.util;
+
+import java.util.Locale;
+
+/**
+ * Canonical form used for search and duplicate checks (stored in the *_norm columns):
+ * Arabic Yeh/Kaf/Heh variants -> Persian, ZWNJ / tatweel / diacritics / bidi marks removed,
+ * Persian and Arabic-Indic digits -> ASCII, lower-cased, whitespace collapsed.
+ * Never returns null, so norm columns can be compared with plain equality.
+ */
+public final class TextNormalizer {
+
+    private TextNormalizer() {}
+
+    public static String normalize(String s) {
+        if (s == null || s.isEmpty()) return "";
+
+        StringBuilder sb = new StringBuilder(s.length());
+        boolean pendingSpace = false;
+
+        for (int i = 0; i < s.length(); i++) {
+            char c = map(s.charAt(i));
+            if (c == 0) continue; // dropped
+
+            if (Character.isWhitespace(c) || c == '\u00A0') {
+                pendingSpace = sb.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                sb.append(' ');
+                pendingSpace = false;
+            }
+            sb.append(c);
+        }
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Phone numbers: digits only (after digit normalization), e.g. "۰۹۱۲-۳۴۵ ۶۷۸۹" -> "09123456789".
+     */
+    public static String normalizePhone(String s) {
+        if (s == null || s.isEmpty()) return "";
+
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = map(s.charAt(i));
+            if (c >= '0' && c <= '9') sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    private static char map(char c) {
+        // Persian (۰-۹) and Arabic-Indic (٠-٩) digits
+        if (c >= '\u06F0' && c <= '\u06F9') return (char) ('0' + (c - '\u06F0'));
+        if (c >= '\u0660' && c <= '\u0669') return (char) ('0' + (c - '\u0660'));
+
+        // harakat, tanwin, superscript alef
+        if ((c >= '\u064B' && c <= '\u065F') || c == '\u0670') return 0;
+
+        return switch (c) {
+            case '\u064A', '\u0649', '\u06D2' -> '\u06CC'; // ي ى ے -> ی
+            case '\u0643' -> '\u06A9';                     // ك -> ک
+            case '\u0629', '\u06C0', '\u06C1' -> '\u0647'; // ة ۀ ہ -> ه
+            case '\u0623', '\u0625', '\u0671' -> '\u0627'; // أ إ ٱ -> ا
+            case '\u0624' -> '\u0648';                     // ؤ -> و
+            case '\u0640',                               // tatweel
+                 '\u200C', '\u200D',                     // ZWNJ / ZWJ
+                 '\u200E', '\u200F', '\u202A', '\u202B', '\u202C', '\u202D', '\u202E', // bidi marks
+                 '\uFEFF' -> 0;                         // BOM
+            default -> c;
+        };
+    }
+}
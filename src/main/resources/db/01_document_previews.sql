@@ -0,0 +1,12 @@
+-- Thumbnails / first-page previews of transaction and debt attachments.
+-- owner_type: TRX = transaction_documents, DBT = debts_documents
+create table document_previews (
+    owner_type   char(3)        not null,
+    document_id  bigint         not null,
+    content_type varchar(100)   not null,
+    width        int            not null,
+    height       int            not null,
+    preview      varbinary(max) not null,
+    created_at   datetime       not null constraint DF_document_previews_created_at default getdate(),
+    constraint PK_document_previews primary key (owner_type, document_id)
+);
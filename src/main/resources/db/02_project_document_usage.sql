@@ -0,0 +1,28 @@
+-- per-project attachment usage, maintained incrementally by DocumentService
+create table project_document_usage (
+    project_id  bigint   not null primary key,
+    total_bytes bigint   not null default 0,
+    doc_count   int      not null default 0,
+    updated_at  datetime not null default getdate(),
+    constraint fk_project_document_usage_project foreign key (project_id) references projects(id)
+);
+
+-- backfill from existing attachments
+insert into project_document_usage (project_id, total_bytes, doc_count)
+select u.project_id, sum(u.size_bytes), count(*)
+from (
+    select t.project_id, datalength(d.doc) as size_bytes
+    from transaction_documents d
+    join transactions t on t.id = d.transaction_id
+    union all
+    select dh.project_id, datalength(d.doc)
+    from debts_documents d
+    join debts_header dh on dh.id = d.debt_header_id
+) u
+group by u.project_id;
+
+-- per-owner count check
+if not exists (select 1 from sys.indexes where name = 'ix_transaction_documents_transaction_id')
+    create index ix_transaction_documents_transaction_id on transaction_documents (transaction_id);
+if not exists (select 1 from sys.indexes where name = 'ix_debts_documents_debt_header_id')
+    create index ix_debts_documents_debt_header_id on debts_documents (debt_header_id);
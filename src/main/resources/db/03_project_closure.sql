@@ -0,0 +1,26 @@
+-- transitive closure of projects.parent_id (including depth-0 self rows),
+-- maintained by ProjectService on create / move / delete
+create table project_closure (
+    ancestor   bigint not null,
+    descendant bigint not null,
+    depth      int    not null,
+    constraint pk_project_closure primary key (ancestor, descendant),
+    constraint fk_project_closure_ancestor foreign key (ancestor) references projects(id),
+    constraint fk_project_closure_descendant foreign key (descendant) references projects(id)
+);
+
+create index ix_project_closure_descendant on project_closure (descendant, ancestor) include (depth);
+
+-- backfill from the existing parent_id links
+with tree (ancestor, descendant, depth) as (
+    select id, id, 0
+    from projects
+    union all
+    select t.ancestor, p.id, t.depth + 1
+    from tree t
+    join projects p on p.parent_id = t.descendant
+)
+insert into project_closure (ancestor, descendant, depth)
+select ancestor, descendant, depth
+from tree
+option (maxrecursion 0);
@@ -0,0 +1,34 @@
+-- normalized shadow columns (see com.app.util.TextNormalizer), filled by the entities
+-- on insert/update and for existing rows by NormalizedColumnsBackfill at startup
+
+alter table persons add
+    name_norm         nvarchar(50) null,
+    last_name_norm    nvarchar(50) null,
+    company_name_norm nvarchar(50) null,
+    tel_norm          varchar(50)  null;
+
+alter table items add
+    code_norm  nvarchar(10) null,
+    title_norm nvarchar(50) null;
+
+alter table item_categories add
+    title_norm nvarchar(50) null;
+
+alter table projects add
+    title_norm nvarchar(50) null;
+go
+
+-- duplicate checks (equality) and typeahead (prefix)
+create index ix_persons_natural_norm on persons (is_legal, name_norm, last_name_norm);
+create index ix_persons_company_norm on persons (is_legal, company_name_norm);
+create index ix_persons_name_norm on persons (name_norm);
+create index ix_persons_last_name_norm on persons (last_name_norm);
+create index ix_persons_company_name_norm on persons (company_name_norm);
+create index ix_persons_tel_norm on persons (tel_norm);
+
+create index ix_items_code_norm on items (code_norm);
+create index ix_items_title_norm on items (title_norm);
+
+create index ix_item_categories_title_norm on item_categories (title_norm);
+
+create index ix_projects_title_norm on projects (title_norm);
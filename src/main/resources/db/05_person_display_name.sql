@@ -0,0 +1,14 @@
+-- sort key for keyset (seek) pagination of persons: company name for legal persons,
+-- "last name + name" otherwise, both from the normalized columns (04_normalized_columns.sql)
+
+alter table persons add
+    display_name_norm as (
+        case when is_legal = 1
+             then isnull(company_name_norm, N'')
+             else ltrim(rtrim(isnull(last_name_norm, N'') + N' ' + isnull(name_norm, N'')))
+        end
+    ) persisted;
+go
+
+create index ix_persons_display_name_norm on persons (display_name_norm, id);
+go
@@ -0,0 +1,30 @@
+-- how often each person / item / unit was picked on debts and transactions;
+-- written in batches by com.app.service.UsageTracker
+
+create table usage_counters (
+    entity_type  char(1)   not null,  -- P = person, I = item, U = unit
+    entity_id    bigint    not null,
+    use_count    bigint    not null,
+    last_used_at datetime2 not null,
+    constraint pk_usage_counters primary key (entity_type, entity_id)
+);
+go
+
+-- backfill from existing data
+insert into usage_counters (entity_type, entity_id, use_count, last_used_at)
+select 'I', item_id, count(*), sysdatetime() from debts_detail group by item_id;
+
+insert into usage_counters (entity_type, entity_id, use_count, last_used_at)
+select 'U', unit_id, count(*), sysdatetime() from debts_detail group by unit_id;
+
+insert into usage_counters (entity_type, entity_id, use_count, last_used_at)
+select 'P', person_id, count(*), sysdatetime()
+from (
+    select person_id from debts_header
+    union all
+    select from_person_id from transactions
+    union all
+    select to_person_id from transactions
+) u
+group by person_id;
+go
@@ -0,0 +1,16 @@
+-- per-table change counters for the reference-data bootstrap (com.app.service.DataVersionService);
+-- bumped before commit, in the same transaction as the write (the writing service methods are @Transactional)
+
+create table data_versions (
+    table_name varchar(30) not null,
+    version    bigint      not null,
+    constraint pk_data_versions primary key (table_name)
+);
+go
+
+insert into data_versions (table_name, version) values
+    ('units', 1),
+    ('item_categories', 1),
+    ('items', 1),
+    ('projects', 1);
+go
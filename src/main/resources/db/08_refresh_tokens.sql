@@ -0,0 +1,32 @@
+-- refresh tokens (stored as SHA-256 hex, never in clear) and access-token revocations;
+-- see com.app.service.AuthTokenService / com.app.security.TokenRevocationList
+
+create table refresh_tokens (
+    id          bigint identity(1,1) not null,
+    token_hash  char(64)      not null,
+    username    nvarchar(255) not null,
+    created_at  datetime2     not null,
+    expires_at  datetime2     not null,
+    revoked_at  datetime2     null,
+    constraint pk_refresh_tokens primary key (id)
+);
+go
+
+create unique index ux_refresh_tokens_hash on refresh_tokens (token_hash);
+create index ix_refresh_tokens_username on refresh_tokens (username) where revoked_at is null;
+go
+
+-- one row per revoked access token (jti) or per "all tokens of a user issued before" cut-off;
+-- rows are useless once expires_at (= the longest possible access token lifetime) has passed
+create table token_revocations (
+    id             bigint identity(1,1) not null,
+    jti            varchar(36)   null,
+    username       nvarchar(255) null,
+    revoked_before datetime2     null,
+    expires_at     datetime2     not null,
+    constraint pk_token_revocations primary key (id)
+);
+go
+
+create index ix_token_revocations_expires on token_revocations (expires_at);
+go
@@ -0,0 +1,12 @@
+-- replica lag probe (com.app.config.ReplicaLagMonitor): the app writes the current time on
+-- the primary and reads it back from the read replica; the difference is the replication lag
+
+create table replica_heartbeat (
+    id      int       not null,
+    beat_at datetime2 not null,
+    constraint pk_replica_heartbeat primary key (id)
+);
+go
+
+insert into replica_heartbeat (id, beat_at) values (1, sysutcdatetime());
+go
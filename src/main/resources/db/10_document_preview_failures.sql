@@ -0,0 +1,10 @@
+-- documents whose preview could not be rendered (corrupt / unsupported / over the size cap);
+-- GET .../preview answers 404 for them instead of re-reading the blob on every request.
+-- Cleared with the document's preview, i.e. when the document is deleted.
+create table document_preview_failures (
+    owner_type  char(3)       not null,
+    document_id bigint        not null,
+    reason      nvarchar(400) null,
+    failed_at   datetime      not null constraint DF_document_preview_failures_failed_at default getdate(),
+    constraint PK_document_preview_failures primary key (owner_type, document_id)
+);